@@ -0,0 +1,117 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.Sla;
+
+/**
+ * Deterministic benchmark inputs.
+ */
+final class BenchmarkFixtures {
+
+	/**
+	 * First day of the generated data, a Monday.
+	 */
+	static final LocalDate START = LocalDate.of(2010, 1, 4);
+
+	/**
+	 * Last day of the generated holidays.
+	 */
+	private static final LocalDate END = LocalDate.of(2040, 1, 1);
+
+	private BenchmarkFixtures() {
+		// Factory
+	}
+
+	/**
+	 * Return evenly spread holidays.
+	 *
+	 * @param perYear The amount of holidays per year.
+	 * @return The holidays at the start of their day in the default time zone.
+	 */
+	static List<Date> newHolidays(final int perYear) {
+		final List<Date> holidays = new ArrayList<>();
+		if (perYear > 0) {
+			final int step = Math.max(1, 365 / perYear);
+			for (LocalDate day = START; day.isBefore(END); day = day.plusDays(step)) {
+				holidays.add(Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+			}
+		}
+		return holidays;
+	}
+
+	/**
+	 * Return business hours between 8h and 18h, split into several ranges.
+	 *
+	 * @param ranges The amount of ranges per day.
+	 * @return The sorted business hours.
+	 */
+	static List<BusinessHours> newBusinessHours(final int ranges) {
+		final List<BusinessHours> businessHours = new ArrayList<>();
+		final long slot = 10 * DateUtils.MILLIS_PER_HOUR / ranges;
+		for (int i = 0; i < ranges; i++) {
+			final BusinessHours range = new BusinessHours();
+			range.setStart(8 * DateUtils.MILLIS_PER_HOUR + i * slot);
+			range.setEnd(range.getStart() + slot * 4 / 5);
+			businessHours.add(range);
+		}
+		return businessHours;
+	}
+
+	/**
+	 * Return the compiled calendar.
+	 *
+	 * @param holidaysPerYear The amount of holidays per year.
+	 * @param ranges          The amount of business hour ranges per day.
+	 * @return The compiled calendar.
+	 */
+	static BusinessCalendar newCalendar(final int holidaysPerYear, final int ranges) {
+		return new BusinessCalendar(newHolidays(holidaysPerYear), newBusinessHours(ranges));
+	}
+
+	/**
+	 * Return SLAs with various start, stop and pause statuses of the {@link ChangeLogGenerator} workflow.
+	 *
+	 * @param count The amount of SLAs.
+	 * @return The SLAs with their resolved identifiers.
+	 */
+	static List<Sla> newSlas(final int count) {
+		final List<Sla> slas = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			final Sla sla = new Sla();
+			sla.setName("SLA" + i);
+			sla.setStart("START");
+			sla.setStop("STOP");
+			sla.setStartAsSet(i % 2 == 0 ? Set.of(ChangeLogGenerator.OPEN, ChangeLogGenerator.REOPENED)
+					: Set.of(ChangeLogGenerator.IN_PROGRESS));
+			sla.setStopAsSet(Set.of(i % 3 == 0 ? ChangeLogGenerator.RESOLVED : ChangeLogGenerator.CLOSED));
+			sla.setPausedAsSet(i % 3 == 0 ? new HashSet<>() : Set.of(ChangeLogGenerator.WAITING));
+			sla.setTypesAsSet(new HashSet<>());
+			sla.setPrioritiesAsSet(new HashSet<>());
+			sla.setResolutionsAsSet(new HashSet<>());
+			sla.setThreshold((i % 4) * 8 * DateUtils.MILLIS_PER_HOUR);
+			slas.add(sla);
+		}
+		return slas;
+	}
+
+	/**
+	 * Return the first generated day at 9h, a Monday.
+	 *
+	 * @return The start instant.
+	 */
+	static long getStart() {
+		return START.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli() + 9 * DateUtils.MILLIS_PER_HOUR;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ComputationContext} cursor moves over spans from hours to years.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputationContextBenchmark {
+
+	/**
+	 * The moved span, in hours : elapsed hours for {@link #moveForwardDate()}, business hours for
+	 * {@link #moveForwardDuration()}.
+	 */
+	@Param({ "8", "720", "8760", "87600" })
+	public int spanHours;
+
+	/**
+	 * The amount of holidays per year.
+	 */
+	@Param({ "0", "12", "52" })
+	public int holidaysPerYear;
+
+	/**
+	 * The amount of business hour ranges per day.
+	 */
+	@Param({ "1", "4", "16" })
+	public int rangesPerDay;
+
+	private ComputationContext context;
+
+	private long start;
+
+	private Date end;
+
+	private long span;
+
+	@Setup
+	public void setup() {
+		context = new ComputationContext(BenchmarkFixtures.newCalendar(holidaysPerYear, rangesPerDay));
+		start = BenchmarkFixtures.getStart();
+		span = spanHours * DateUtils.MILLIS_PER_HOUR;
+		end = new Date(start + span);
+	}
+
+	@Benchmark
+	public long moveForwardDate() {
+		context.reset(start);
+		return context.moveForward(end);
+	}
+
+	@Benchmark
+	public Date moveForwardDuration() {
+		context.reset(start);
+		return context.moveForward(span);
+	}
+}
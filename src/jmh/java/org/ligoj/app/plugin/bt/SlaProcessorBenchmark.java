@@ -0,0 +1,93 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.Sla;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link SlaProcessor} computations over synthetic changelogs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SlaProcessorBenchmark {
+
+	/**
+	 * The approximate amount of changes.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	public int changes;
+
+	/**
+	 * The amount of SLAs. Above 64, the SLAs are evaluated in several groups.
+	 */
+	@Param({ "1", "8", "64", "128" })
+	public int slas;
+
+	/**
+	 * The amount of holidays per year.
+	 */
+	@Param({ "0", "52" })
+	public int holidaysPerYear;
+
+	/**
+	 * The amount of business hour ranges per day.
+	 */
+	@Param({ "1", "16" })
+	public int rangesPerDay;
+
+	/**
+	 * The average amount of changes per issue of the default generated workflow.
+	 */
+	private static final int CHANGES_PER_ISSUE = 6;
+
+	private final SlaProcessor processor = new SlaProcessor();
+
+	private BusinessCalendar calendar;
+
+	private List<ChangeItem> changeItems;
+
+	private ChangeLog changeLog;
+
+	private List<Sla> slaItems;
+
+	@Setup
+	public void setup() {
+		processor.identifierHelper = new IdentifierHelper();
+		calendar = BenchmarkFixtures.newCalendar(holidaysPerYear, rangesPerDay);
+		changeLog = new ChangeLogGenerator(changes).issues(changes / CHANGES_PER_ISSUE)
+				.period(BenchmarkFixtures.getStart(), 3 * 365 * DateUtils.MILLIS_PER_DAY).generate();
+		changeItems = ChangeLogGenerator.toChangeItems(changeLog);
+		slaItems = BenchmarkFixtures.newSlas(slas);
+	}
+
+	@Benchmark
+	public SlaComputations process() {
+		return processor.process(calendar, changeItems, slaItems);
+	}
+
+	@Benchmark
+	public SlaComputations processChangeLog() {
+		return processor.process(calendar, changeLog, slaItems);
+	}
+}
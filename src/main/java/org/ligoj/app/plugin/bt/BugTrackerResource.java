@@ -3,13 +3,25 @@
  */
 package org.ligoj.app.plugin.bt;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.zip.GZIPOutputStream;
+import java.util.stream.Stream;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import jakarta.transaction.Transactional.TxType;
 import jakarta.ws.rs.Consumes;
@@ -20,20 +32,29 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.time.DateUtils;
+import org.hibernate.Session;
 import org.ligoj.app.model.Node;
 import org.ligoj.app.plugin.bt.dao.BugTrackerConfigurationRepository;
 import org.ligoj.app.plugin.bt.dao.BusinessHoursRepository;
 import org.ligoj.app.plugin.bt.dao.CalendarRepository;
-import org.ligoj.app.plugin.bt.dao.HolidayRepository;
+import org.ligoj.app.plugin.bt.dao.HolidayRuleRepository;
+import org.ligoj.app.plugin.bt.dao.IssueCheckpointRepository;
 import org.ligoj.app.plugin.bt.dao.SlaRepository;
 import org.ligoj.app.plugin.bt.model.BugTrackerConfiguration;
 import org.ligoj.app.plugin.bt.model.BusinessHours;
 import org.ligoj.app.plugin.bt.model.Calendar;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
 import org.ligoj.app.plugin.bt.model.Holiday;
+import org.ligoj.app.plugin.bt.model.HolidayRule;
+import org.ligoj.app.plugin.bt.model.HolidayRuleType;
+import org.ligoj.app.plugin.bt.model.IssueCheckpoint;
 import org.ligoj.app.plugin.bt.model.Sla;
 import org.ligoj.app.resource.ServicePluginLocator;
 import org.ligoj.app.resource.plugin.AbstractConfiguredServicePlugin;
@@ -45,11 +66,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * The bug tracker service.
  */
 @Path(BugTrackerResource.SERVICE_URL)
 @Component
+@Slf4j
 @Transactional
 @Produces(MediaType.APPLICATION_JSON)
 public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrackerConfiguration> {
@@ -65,7 +91,7 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 	public static final String SERVICE_KEY = SERVICE_URL.replace('/', ':').substring(1);
 
 	@Autowired
-	private HolidayRepository holidayRepository;
+	private HolidayRuleRepository holidayRuleRepository;
 
 	@Autowired
 	private BugTrackerConfigurationRepository repository;
@@ -91,15 +117,83 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 	@Autowired
 	protected IdentifierHelper identifierHelper;
 
+	@Autowired
+	private BusinessCalendarCache calendarCache;
+
+	@Autowired
+	private IssueCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private ProviderMetadataCache metadataCache;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@PersistenceContext
+	private EntityManager em;
+
 	@Override
 	@Transactional(value = TxType.SUPPORTS)
 	public String getKey() {
 		return SERVICE_KEY;
 	}
 
+	@Override
+	public void update(final String oldVersion) throws Exception {
+		super.update(oldVersion);
+		dropLegacyBusinessHoursConstraint();
+	}
+
+	/**
+	 * Schema of the current connection and the quote of its identifiers.
+	 */
+	private record Database(String schema, String quote) {
+
+		/**
+		 * Return the quoted identifier, escaping the embedded quotes.
+		 */
+		private String quote(final String identifier) {
+			return quote + identifier.replace(quote, quote + quote) + quote;
+		}
+	}
+
+	/**
+	 * Drop the unique constraint on the configuration and the start of the business hours created by the previous
+	 * versions. This constraint rejects the ranges of several days of week starting at the same time, and is not
+	 * removed by the schema update. Only the table of the current schema is considered, MySQL exposes its database as
+	 * schema.
+	 */
+	private void dropLegacyBusinessHoursConstraint() {
+		final Database database = em.unwrap(Session.class).doReturningWork(c -> new Database(
+				ObjectUtils.getIfNull(c.getSchema(), c.getCatalog()), c.getMetaData().getIdentifierQuoteString()));
+
+		// Columns by table and constraint names
+		final Map<List<String>, Set<String>> constraints = new HashMap<>();
+		em.createNativeQuery("SELECT tc.TABLE_NAME, tc.CONSTRAINT_NAME, kcu.COLUMN_NAME"
+				+ " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc INNER JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE kcu"
+				+ " ON kcu.CONSTRAINT_SCHEMA = tc.CONSTRAINT_SCHEMA AND kcu.CONSTRAINT_NAME = tc.CONSTRAINT_NAME"
+				+ " AND kcu.TABLE_SCHEMA = tc.TABLE_SCHEMA AND kcu.TABLE_NAME = tc.TABLE_NAME"
+				+ " WHERE tc.CONSTRAINT_TYPE = 'UNIQUE' AND tc.TABLE_SCHEMA = :schema AND kcu.TABLE_SCHEMA = :schema"
+				+ " AND UPPER(tc.TABLE_NAME) = 'LIGOJ_BUSINESS_HOURS' AND UPPER(kcu.TABLE_NAME) = 'LIGOJ_BUSINESS_HOURS'")
+				.setParameter("schema", database.schema()).getResultList().forEach(r -> {
+					final Object[] row = (Object[]) r;
+					constraints.computeIfAbsent(List.of((String) row[0], (String) row[1]), k -> new TreeSet<>())
+							.add(((String) row[2]).toUpperCase(Locale.ENGLISH));
+				});
+		constraints.entrySet().stream().filter(e -> e.getValue().equals(Set.of("CONFIGURATION", "START")))
+				.map(Map.Entry::getKey).forEach(k -> {
+					log.info("Drop the legacy unique constraint {} of the business hours", k.get(1));
+					em.createNativeQuery("ALTER TABLE " + database.quote(database.schema()) + "."
+							+ database.quote(k.get(0)) + " DROP CONSTRAINT " + database.quote(k.get(1))).executeUpdate();
+				});
+	}
+
 	@Override
 	public void delete(final int subscription, final boolean deleteRemoteData) {
-		repository.delete(repository.findByExpected("subscription.id", subscription));
+		final BugTrackerConfiguration configuration = repository.findByExpected("subscription.id", subscription);
+		checkpointRepository.deleteByConfiguration(configuration.getId());
+		metadataCache.evict(subscription);
+		repository.delete(configuration);
 	}
 
 	@Override
@@ -156,31 +250,23 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 		entity.setName("Default");
 		calendarRepository.saveAndFlush(entity);
 
-		final java.util.Calendar calendar = java.util.Calendar.getInstance();
-
-		// January 1st and Christmas this year
-		addHoliday(entity, calendar, 0, 1, "New year " + calendar.get(java.util.Calendar.YEAR));
-		addHoliday(entity, calendar, 11, 25, "Christmas " + calendar.get(java.util.Calendar.YEAR));
-
-		// January 1st and Christmas next year
-		calendar.add(java.util.Calendar.YEAR, 1);
-		addHoliday(entity, calendar, 0, 1, "New year " + calendar.get(java.util.Calendar.YEAR));
-		addHoliday(entity, calendar, 11, 25, "Christmas " + calendar.get(java.util.Calendar.YEAR));
+		// January 1st and Christmas every year
+		addHolidayRule(entity, 1, 1, "New year");
+		addHolidayRule(entity, 12, 25, "Christmas");
 		return entity;
 	}
 
 	/**
-	 * Add a holiday to the given {@link Calendar}
+	 * Add a yearly holiday to the given {@link Calendar}
 	 */
-	private void addHoliday(final Calendar entity, final java.util.Calendar calendar, final int month, final int dayOfMonth,
-			final String name) {
-		calendar.set(java.util.Calendar.MONTH, month);
-		calendar.set(java.util.Calendar.DAY_OF_MONTH, dayOfMonth);
-		final Holiday holiday = new Holiday();
-		holiday.setDate(calendar.getTime());
-		holiday.setCalendar(entity);
-		holiday.setName(name);
-		holidayRepository.saveAndFlush(holiday);
+	private void addHolidayRule(final Calendar entity, final int month, final int dayOfMonth, final String name) {
+		final HolidayRule rule = new HolidayRule();
+		rule.setType(HolidayRuleType.FIXED);
+		rule.setMonthOfYear(month);
+		rule.setDayOfMonth(dayOfMonth);
+		rule.setCalendar(entity);
+		rule.setName(name);
+		holidayRuleRepository.saveAndFlush(rule);
 	}
 
 	@Override
@@ -193,15 +279,130 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 		result.setCalendar(configuration.getCalendar());
 
 		// Provider data
-		final BugTrackerServicePlugin provider = servicePluginLocator.getResourceExpected(configuration.getSubscription().getNode().getId(),
-				BugTrackerServicePlugin.class);
-		result.setTypes(new ArrayList<>(provider.getTypes(subscription)));
-		result.setStatuses(identifierHelper.normalize(provider.getStatuses(subscription)));
-		result.setPriorities(new ArrayList<>(provider.getPriorities(subscription)));
-		result.setResolutions(new ArrayList<>(provider.getResolutions(subscription)));
+		final ProviderMetadataCache.Metadata metadata = metadataCache.getMetadata(subscription, getProvider(configuration));
+		result.setTypes(new ArrayList<>(metadata.types()));
+		result.setStatuses(identifierHelper.normalize(metadata.statuses()));
+		result.setPriorities(new ArrayList<>(metadata.priorities()));
+		result.setResolutions(new ArrayList<>(metadata.resolutions()));
 		return result;
 	}
 
+	/**
+	 * Evict the cached provider data of a subscription : statuses, types, priorities and resolutions. The next
+	 * configuration request reads them again from the provider.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 */
+	@DELETE
+	@Path("metadata/{subscription:\\d+}")
+	public void evictMetadata(@PathParam("subscription") final int subscription) {
+		// Check the subscription is visible
+		getConfigurationBySubscription(subscription);
+		metadataCache.evict(subscription);
+	}
+
+	/**
+	 * Return the provider of the given configuration.
+	 */
+	private BugTrackerServicePlugin getProvider(final BugTrackerConfiguration configuration) {
+		return servicePluginLocator.getResourceExpected(configuration.getSubscription().getNode().getId(),
+				BugTrackerServicePlugin.class);
+	}
+
+	/**
+	 * Return the SLA computations of all issues of the given subscription. The issues are written as soon as they are
+	 * computed, so the whole computations are never in memory.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The streamed {@link SlaComputations} JSON.
+	 * @throws IOException
+	 *             When changes cannot be read from the provider.
+	 */
+	@GET
+	@Path("sla/{subscription:\\d+}/computations")
+	public StreamingOutput getSlaComputations(@PathParam("subscription") final int subscription) throws IOException {
+		return computeSlas(subscription,
+				(output, slaConfigurations, calendar) -> new SlaJsonWriter(objectMapper, output, slaConfigurations));
+	}
+
+	/**
+	 * Return the SLA computations of all issues of the given subscription as a CSV file, one row per issue. The rows
+	 * are written as soon as they are computed.
+	 * 
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param gzip
+	 *            When <code>true</code>, the file is compressed.
+	 * @return The streamed CSV file.
+	 * @throws IOException
+	 *             When changes cannot be read from the provider.
+	 */
+	@GET
+	@Path("sla/{subscription:\\d+}/computations.csv")
+	@Produces({ "text/csv", "application/gzip" })
+	public Response getSlaComputationsCsv(@PathParam("subscription") final int subscription,
+			@QueryParam("gzip") final boolean gzip) throws IOException {
+		final StreamingOutput output = computeSlas(subscription, (target, slaConfigurations, calendar) -> {
+			final OutputStream stream = gzip ? new GZIPOutputStream(target, 1 << 16) : target;
+			return new SlaCsvWriter(stream, slaConfigurations, calendar.getZone());
+		});
+		final String file = "sla-" + subscription + ".csv" + (gzip ? ".gz" : "");
+		return Response.ok(output, gzip ? "application/gzip" : "text/csv")
+				.header("Content-Disposition", "attachment; filename=" + file).build();
+	}
+
+	/**
+	 * Return the streamed SLA computations of all issues of the given subscription. The changes of the provider are
+	 * consumed while the response is written, after the transaction of this resource has ended. See
+	 * {@link BugTrackerServicePlugin#getChanges(int, List)}.
+	 */
+	private StreamingOutput computeSlas(final int subscription, final SlaWriterFactory factory) throws IOException {
+		final BugTrackerConfiguration configuration = getConfigurationBySubscription(subscription);
+		final List<Sla> slas = new ArrayList<>(configuration.getSlas());
+		final BusinessCalendar calendar = calendarCache.getCalendar(configuration);
+		final Stream<ChangeItem> changes = getProvider(configuration).getChanges(subscription, slas);
+		final List<SlaConfiguration> slaConfigurations = slaProcessor.toSlaConfiguration(slas);
+
+		// Resume from the checkpoints of the previous computation, the changes they include are skipped
+		final Map<Integer, IssueCheckpoint> checkpoints = new HashMap<>();
+		checkpointRepository.findBySubscription(subscription).forEach(c -> checkpoints.put(c.getIssue(), c));
+		return output -> {
+			try (changes; SlaWriter writer = factory.create(output, slaConfigurations, calendar)) {
+				slaProcessor.process(calendar, checkpoints, changes.iterator(), slas, writer);
+				writer.finish();
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+			saveCheckpoints(configuration, checkpoints.values());
+		};
+	}
+
+	/**
+	 * Save the checkpoints of a successful computation, in their own transaction. The changes without issue identifier
+	 * have no checkpoint.
+	 */
+	private void saveCheckpoints(final BugTrackerConfiguration configuration,
+			final Collection<IssueCheckpoint> checkpoints) {
+		final List<IssueCheckpoint> issues = checkpoints.stream().filter(c -> c.getIssue() != null).toList();
+		issues.stream().filter(c -> c.getConfiguration() == null).forEach(c -> c.setConfiguration(configuration));
+		checkpointRepository.saveAll(issues);
+	}
+
+	/**
+	 * Factory of the writer of the computed issues.
+	 */
+	@FunctionalInterface
+	private interface SlaWriterFactory {
+
+		/**
+		 * Return a new writer to the given output.
+		 */
+		SlaWriter create(OutputStream output, List<SlaConfiguration> slaConfigurations, BusinessCalendar calendar)
+				throws IOException;
+	}
+
 	/**
 	 * Add a new SLA to the given subscription.
 	 * 
@@ -234,6 +435,7 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 		entity.setResolutions(String.join(",", vo.getResolutions()));
 		entity.setTypes(String.join(",", vo.getTypes()));
 		slaRepository.saveAndFlush(entity);
+		checkpointRepository.deleteByConfiguration(entity.getConfiguration().getId());
 	}
 
 	/**
@@ -270,7 +472,9 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 	@DELETE
 	@Path("sla/{id:\\d+}")
 	public void deleteSla(@PathParam("id") final int id) {
-		deletedConfigured(slaRepository, id);
+		final Sla sla = findConfigured(slaRepository, id);
+		checkpointRepository.deleteByConfiguration(sla.getConfiguration().getId());
+		slaRepository.delete(sla);
 	}
 
 	/**
@@ -288,9 +492,12 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 		entity.setConfiguration(getConfigurationBySubscription(vo.getSubscription()));
 		entity.setEnd(vo.getEnd());
 		entity.setStart(vo.getStart());
+		entity.setDayOfWeek(vo.getDayOfWeek());
 		entity.setId(vo.getId());
 		businessHoursRepository.saveAndFlush(entity);
 		checkOverlaps(entity);
+		calendarCache.evict(entity.getConfiguration().getCalendar().getId());
+		checkpointRepository.deleteByConfiguration(entity.getConfiguration().getId());
 		return entity.getId();
 	}
 
@@ -324,6 +531,8 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 			throw new BusinessException("service:bt:no-business-hours");
 		}
 		businessHoursRepository.delete(businessHours);
+		calendarCache.evict(businessHours.getConfiguration().getCalendar().getId());
+		checkpointRepository.deleteByConfiguration(businessHours.getConfiguration().getId());
 	}
 
 	/**
@@ -337,7 +546,12 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 	@PUT
 	@Path("calendar/{subscription:\\d+}/{calendar:\\d+}")
 	public void setCalendar(@PathParam("subscription") final int subscription, @PathParam("calendar") final int calendar) {
-		getConfigurationBySubscription(subscription).setCalendar(calendarRepository.findOneExpected(calendar));
+		final BugTrackerConfiguration configuration = getConfigurationBySubscription(subscription);
+
+		// The compiled forms of the previous calendar are no more needed by this configuration
+		calendarCache.evict(configuration.getCalendar().getId());
+		configuration.setCalendar(calendarRepository.findOneExpected(calendar));
+		checkpointRepository.deleteByConfiguration(configuration.getId());
 	}
 
 	/**
@@ -352,12 +566,16 @@ public class BugTrackerResource extends AbstractConfiguredServicePlugin<BugTrack
 	}
 
 	/**
-	 * Check business hours overlaps.
+	 * Check business hours overlaps and same starts within the same day of week.
 	 */
 	private void checkOverlaps(final BusinessHours newBusinessHours) {
-		// Order business hours. BusinessHours is comparable
-		final Set<BusinessHours> businessHours = new TreeSet<>(newBusinessHours.getConfiguration().getBusinessHours());
+		// Order business hours, ranges starting at the same time are kept. BusinessHours is comparable
+		final List<BusinessHours> businessHours = new ArrayList<>(newBusinessHours.getConfiguration()
+				.getBusinessHours().stream()
+				.filter(r -> Objects.equals(r.getDayOfWeek(), newBusinessHours.getDayOfWeek()))
+				.filter(r -> !Objects.equals(r.getId(), newBusinessHours.getId())).toList());
 		businessHours.add(newBusinessHours);
+		Collections.sort(businessHours);
 
 		// Check the start<=end
 		if (newBusinessHours.getEnd() <= newBusinessHours.getStart()) {
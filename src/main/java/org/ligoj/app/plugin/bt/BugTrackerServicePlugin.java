@@ -4,9 +4,14 @@
 package org.ligoj.app.plugin.bt;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.ligoj.app.api.ServicePlugin;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.Sla;
+import org.ligoj.bootstrap.core.resource.BusinessException;
 
 /**
  * Features of bug tracker implementations.
@@ -56,4 +61,22 @@ public interface BugTrackerServicePlugin extends ServicePlugin {
 	 *             When resolutions cannot read.
 	 */
 	Set<String> getResolutions(int subscription) throws IOException;
+
+	/**
+	 * Return the status changes of all issues, and resolve the identifier sets of the given SLA with the identifiers
+	 * used by these changes. Not supported by default.
+	 * 
+	 * @param subscription
+	 *            the subscription's identifier.
+	 * @param slas
+	 *            the SLA configurations to resolve : statuses, types, priorities and resolutions.
+	 * @return the changes, grouped by issue and ordered by date within an issue. Closed by the caller. The stream may
+	 *         be consumed after the transaction of the caller has ended, such as by a streamed response : it must not
+	 *         depend on this transaction, a JDBC cursor or a lazy persistence session.
+	 * @throws IOException
+	 *             When changes cannot read.
+	 */
+	default Stream<ChangeItem> getChanges(int subscription, List<Sla> slas) throws IOException {
+		throw new BusinessException("service:bt:no-changes");
+	}
 }
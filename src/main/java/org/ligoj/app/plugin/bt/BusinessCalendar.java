@@ -0,0 +1,682 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.Calendar;
+import org.ligoj.app.plugin.bt.model.HolidayRule;
+
+/**
+ * A compiled business calendar built once from holidays, working days and business hours. The business hours are
+ * compiled into a weekly template, one list of ranges per day of week. The cumulative business time at the start of
+ * each day is indexed, so the business time between two instants is a lookup instead of a day by day walk. The index
+ * is extended on demand and never mutated once published, so an instance can be shared by several computations.
+ * Day boundaries and business hours follow the wall clock of the calendar's time zone, including the days not lasting
+ * 24 hours because of a daylight saving time transition. The recurring holidays are expanded lazily, one year at a
+ * time, when the index reaches this year.
+ */
+public class BusinessCalendar {
+
+	/**
+	 * Minimal amount of days added to the index on each extension.
+	 */
+	private static final int INDEX_PADDING = 366;
+
+	/**
+	 * Minimal amount of intervals of a batch computed in parallel.
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * Epoch day of the first holiday, the origin of {@link #holidays}.
+	 */
+	private final long holidayBase;
+
+	/**
+	 * The holidays, one bit per day from {@link #holidayBase}.
+	 */
+	private final BitSet holidays;
+
+	/**
+	 * The recurring holiday rules.
+	 */
+	private final List<HolidayRule> holidayRules;
+
+	/**
+	 * Expanded recurring holidays by year, one bit per day of the year from January 1st. Only accessed while extending
+	 * the index.
+	 */
+	private final Map<Integer, BitSet> expandedYears = new HashMap<>();
+
+	/**
+	 * Sorted starts of the non empty business hour ranges of each day of week, relative to the start of a 24 hours
+	 * day. Index 0 for Monday to 6 for Sunday. Empty for the non working days.
+	 */
+	private final long[][] rangeStarts = new long[7][];
+
+	/**
+	 * Ends of the non empty business hour ranges of each day of week, relative to the start of a 24 hours day. Same
+	 * order as {@link #rangeStarts}.
+	 */
+	private final long[][] rangeEnds = new long[7][];
+
+	/**
+	 * Business time of a 24 hours day of each day of week, holidays excluded.
+	 */
+	private final long[] weekDurations = new long[7];
+
+	/**
+	 * Business time of a whole week without holiday.
+	 */
+	private final long weekDuration;
+
+	/**
+	 * The zone used to compute the day boundaries.
+	 */
+	private final ZoneId zone;
+
+	/**
+	 * The resolved rules of {@link #zone}.
+	 */
+	private final ZoneRules rules;
+
+	/**
+	 * The current index. Replaced by a wider one when a requested instant is out of its bounds.
+	 */
+	private volatile Index index;
+
+	/**
+	 * Indexed days snapshot. Never updated once published.
+	 */
+	private static final class Index {
+
+		/**
+		 * Epoch day of the first indexed day.
+		 */
+		private final long first;
+
+		/**
+		 * Amount of indexed days.
+		 */
+		private final int size;
+
+		/**
+		 * Start instant of each indexed day, plus the start of the day following the last one.
+		 */
+		private final long[] days;
+
+		/**
+		 * Cumulative business time at the start of each day of {@link #days}.
+		 */
+		private final long[] cumulated;
+
+		/**
+		 * Indexed days without business time, one bit per day.
+		 */
+		private final BitSet closed;
+
+		/**
+		 * Business hour range starts of each indexed day, relative to the start of this day.
+		 */
+		private final long[][] starts;
+
+		/**
+		 * Business hour range ends of each indexed day, relative to the start of this day.
+		 */
+		private final long[][] ends;
+
+		private Index(final long first, final long[] days, final long[] cumulated, final BitSet closed,
+				final long[][] starts, final long[][] ends) {
+			this.first = first;
+			this.size = days.length - 1;
+			this.days = days;
+			this.cumulated = cumulated;
+			this.closed = closed;
+			this.starts = starts;
+			this.ends = ends;
+		}
+
+		/**
+		 * Indicate the given instant is within the indexed days.
+		 */
+		private boolean contains(final long instant) {
+			return instant >= days[0] && instant < days[size];
+		}
+
+		/**
+		 * Return the index of the day containing the given instant. This instant must be within the indexed days. The
+		 * day is guessed from 24 hours days, then adjusted by the few hours shifted by the time zone offset changes.
+		 */
+		private int getDay(final long instant) {
+			int day = (int) Math.min((instant - days[0]) / DateUtils.MILLIS_PER_DAY, size - 1L);
+			while (days[day] > instant) {
+				day--;
+			}
+			while (days[day + 1] <= instant) {
+				day++;
+			}
+			return day;
+		}
+
+		/**
+		 * Indicate the given indexed day contains business time.
+		 */
+		private boolean isBusinessDay(final int day) {
+			return !closed.get(day);
+		}
+	}
+
+	/**
+	 * Build a business calendar in the default time zone, Monday to Friday.
+	 *
+	 * @param holidays      the holiday list. Each day must be set to start of the day position.
+	 * @param businessHours The business hour ranges. When empty, the whole day is a business period.
+	 */
+	public BusinessCalendar(final List<Date> holidays, final List<BusinessHours> businessHours) {
+		this(holidays, businessHours, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Build a business calendar, Monday to Friday.
+	 *
+	 * @param holidays      the holiday list. Each day must be set to start of the day position in the default time
+	 *                      zone, as they are stored.
+	 * @param businessHours The business hour ranges. When empty, the whole day is a business period.
+	 * @param zone          The time zone of the days and the business hours.
+	 */
+	public BusinessCalendar(final List<Date> holidays, final List<BusinessHours> businessHours, final ZoneId zone) {
+		this(holidays, businessHours, zone, Calendar.DEFAULT_WORKING_DAYS);
+	}
+
+	/**
+	 * Build a business calendar.
+	 *
+	 * @param holidays      the holiday list. Each day must be set to start of the day position in the default time
+	 *                      zone, as they are stored.
+	 * @param businessHours The business hour ranges. When empty, the whole day is a business period. The ranges of a
+	 *                      day of week replace the ranges without day of week for this day.
+	 * @param zone          The time zone of the days and the business hours.
+	 * @param workingDays   The working days of the week, bit 0 for Monday to bit 6 for Sunday. The days having their own
+	 *                      ranges are working days too.
+	 * @throws IllegalArgumentException When there is no business time within a week.
+	 */
+	public BusinessCalendar(final List<Date> holidays, final List<BusinessHours> businessHours, final ZoneId zone,
+			final int workingDays) {
+		this(holidays, List.of(), businessHours, zone, workingDays);
+	}
+
+	/**
+	 * Build a business calendar with recurring holidays.
+	 *
+	 * @param holidays      the holiday list. Each day must be set to start of the day position in the default time
+	 *                      zone, as they are stored.
+	 * @param holidayRules  The recurring holiday rules, completing the holiday list.
+	 * @param businessHours The business hour ranges. When empty, the whole day is a business period. The ranges of a
+	 *                      day of week replace the ranges without day of week for this day.
+	 * @param zone          The time zone of the days and the business hours.
+	 * @param workingDays   The working days of the week, bit 0 for Monday to bit 6 for Sunday. The days having their own
+	 *                      ranges are working days too.
+	 * @throws IllegalArgumentException When there is no business time within a week.
+	 */
+	public BusinessCalendar(final List<Date> holidays, final List<HolidayRule> holidayRules,
+			final List<BusinessHours> businessHours, final ZoneId zone, final int workingDays) {
+		this.zone = zone;
+		this.holidayRules = List.copyOf(holidayRules);
+		this.rules = zone.getRules();
+		final ZoneId storage = ZoneId.systemDefault();
+		final long[] holidayDays = holidays.stream()
+				.mapToLong(d -> LocalDate.ofInstant(Instant.ofEpochMilli(d.getTime()), storage).toEpochDay()).sorted()
+				.toArray();
+		this.holidayBase = holidayDays.length == 0 ? 0 : holidayDays[0];
+		this.holidays = new BitSet();
+		for (final long holiday : holidayDays) {
+			this.holidays.set((int) (holiday - holidayBase));
+		}
+
+		// Compile the weekly template, a day having its own ranges is a working day
+		long week = 0;
+		for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+			final int isoDayOfWeek = dayOfWeek + 1;
+			final boolean working = (workingDays >> dayOfWeek & 1) == 1
+					|| businessHours.stream().anyMatch(r -> Integer.valueOf(isoDayOfWeek).equals(r.getDayOfWeek()));
+			final List<BusinessHours> ranges = working ? getRanges(businessHours, isoDayOfWeek) : List.of();
+			rangeStarts[dayOfWeek] = ranges.stream().mapToLong(BusinessHours::getStart).toArray();
+			rangeEnds[dayOfWeek] = ranges.stream().mapToLong(r -> Math.min(r.getEnd(), DateUtils.MILLIS_PER_DAY))
+					.toArray();
+			weekDurations[dayOfWeek] = getBusinessTime(rangeStarts[dayOfWeek], rangeEnds[dayOfWeek], Long.MAX_VALUE);
+			week += weekDurations[dayOfWeek];
+		}
+		if (week == 0) {
+			throw new IllegalArgumentException("No business time within a week");
+		}
+		this.weekDuration = week;
+	}
+
+	/**
+	 * Return the effective business ranges of a working day of week, sorted.
+	 */
+	private List<BusinessHours> getRanges(final List<BusinessHours> businessHours, final int dayOfWeek) {
+		if (businessHours.isEmpty()) {
+			// Whole day is a working day
+			final BusinessHours businessHour = new BusinessHours();
+			businessHour.setStart(0);
+			businessHour.setEnd(DateUtils.MILLIS_PER_DAY);
+			return List.of(businessHour);
+		}
+		final List<BusinessHours> ranges = new ArrayList<>(
+				businessHours.stream().filter(r -> Integer.valueOf(dayOfWeek).equals(r.getDayOfWeek())).toList());
+		if (ranges.isEmpty()) {
+			// No specific range for this day
+			ranges.addAll(businessHours.stream().filter(r -> r.getDayOfWeek() == null).toList());
+		}
+		ranges.removeIf(r -> Math.min(r.getEnd(), DateUtils.MILLIS_PER_DAY) <= r.getStart());
+		ranges.sort(Comparator.comparingLong(BusinessHours::getStart));
+		return ranges;
+	}
+
+	/**
+	 * Return the business time of a whole week without holiday.
+	 *
+	 * @return The business time of a week in milliseconds.
+	 */
+	public long getWeekDuration() {
+		return weekDuration;
+	}
+
+	/**
+	 * Return the time zone of this calendar.
+	 *
+	 * @return The time zone of this calendar.
+	 */
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	/**
+	 * Return the cumulative business time at the given instant. The origin is fixed for this calendar but arbitrary, so
+	 * only the difference between two returned values is meaningful.
+	 *
+	 * @param instant The instant, in milliseconds since the epoch.
+	 * @return The cumulative business time in milliseconds.
+	 */
+	public long toBusinessTime(final long instant) {
+		return toBusinessTime(getIndex(instant), instant);
+	}
+
+	/**
+	 * Return the cumulative business time at the given instant within the given index.
+	 */
+	private long toBusinessTime(final Index current, final long instant) {
+		final int day = current.getDay(instant);
+		if (current.isBusinessDay(day)) {
+			return current.cumulated[day]
+					+ getBusinessTime(current.starts[day], current.ends[day], instant - current.days[day]);
+		}
+		return current.cumulated[day];
+	}
+
+	/**
+	 * Return the business time between two instants.
+	 *
+	 * @param start The start instant, in milliseconds since the epoch.
+	 * @param end   The end instant, in milliseconds since the epoch.
+	 * @return The business time in milliseconds between the two instants. <code>0</code> when the end is before the
+	 *         start.
+	 */
+	public long getDuration(final long start, final long end) {
+		if (end <= start) {
+			return 0;
+		}
+		return toBusinessTime(end) - toBusinessTime(start);
+	}
+
+	/**
+	 * Return the business time of each interval. The index is extended once to cover all the intervals, then only
+	 * read, so the large batches are split across the available cores.
+	 *
+	 * @param starts The start instants, in milliseconds since the epoch.
+	 * @param ends   The end instants, in milliseconds since the epoch. Same length and order as the starts.
+	 * @return The business time in milliseconds of each interval, in the order of the given intervals. <code>0</code>
+	 *         when the end is before the start.
+	 * @throws IllegalArgumentException When the arrays do not have the same length.
+	 */
+	public long[] getDurations(final long[] starts, final long[] ends) {
+		if (starts.length != ends.length) {
+			throw new IllegalArgumentException("Starts and ends must have the same length");
+		}
+		final long[] result = new long[starts.length];
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < starts.length; i++) {
+			if (starts[i] < ends[i]) {
+				min = Math.min(min, starts[i]);
+				max = Math.max(max, ends[i]);
+			}
+		}
+		if (min > max) {
+			// Only empty intervals
+			return result;
+		}
+
+		// The index containing the lowest start is only widened to reach the highest end
+		getIndex(min);
+		final Index current = getIndex(max);
+		final IntStream intervals = IntStream.range(0, starts.length);
+		(starts.length < PARALLEL_THRESHOLD ? intervals : intervals.parallel()).forEach(i -> {
+			if (starts[i] < ends[i]) {
+				result[i] = toBusinessTime(current, ends[i]) - toBusinessTime(current, starts[i]);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Return the first business instant at which the cumulative business time reaches the given value. This is the
+	 * reverse of {@link #toBusinessTime(long)} : the day is found with a binary search on the cumulative index, then
+	 * the business hour ranges of this day are consumed.
+	 *
+	 * @param businessTime The cumulative business time, as returned by {@link #toBusinessTime(long)}.
+	 * @return The closest business instant, in milliseconds since the epoch.
+	 */
+	public long toInstant(final long businessTime) {
+		final Index initial = index;
+		Index current = initial == null ? extend(0) : initial;
+		while (businessTime < current.cumulated[0]) {
+			// Before the indexed days, skip at least the whole weeks needed without holidays
+			current = extend(current.days[0] - toWeeks(current.cumulated[0] - businessTime));
+		}
+		while (businessTime >= current.cumulated[current.size]) {
+			// After the indexed days
+			current = extend(current.days[current.size] + toWeeks(businessTime - current.cumulated[current.size]));
+		}
+
+		// Find the last day starting before the requested business time, this day has business time
+		int low = 0;
+		int high = current.size - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			if (current.cumulated[middle] <= businessTime) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		// Consume the business hour ranges of this day
+		final long[] starts = current.starts[low];
+		final long[] ends = current.ends[low];
+		long remaining = businessTime - current.cumulated[low];
+		int range = 0;
+		while (remaining >= ends[range] - starts[range]) {
+			remaining -= ends[range] - starts[range];
+			range++;
+		}
+		return current.days[low] + starts[range] + remaining;
+	}
+
+	/**
+	 * Return the first business instant at or after the given one : within a business day and a business hour range.
+	 *
+	 * @param instant The instant, in milliseconds since the epoch.
+	 * @return The closest business instant, in milliseconds since the epoch.
+	 */
+	public long toNextBusiness(final long instant) {
+		Index current = getIndex(instant);
+		int day = current.getDay(instant);
+		long time = instant - current.days[day];
+		while (true) {
+			if (current.isBusinessDay(day)) {
+				final long[] starts = current.starts[day];
+				final long[] ends = current.ends[day];
+				for (int i = 0; i < starts.length; i++) {
+					if (time < ends[i]) {
+						// The current range is the closest business hours range
+						return current.days[day] + Math.max(time, starts[i]);
+					}
+				}
+			}
+
+			// End of current day, move to the next business day and the first business range again
+			day = current.closed.nextClearBit(day + 1);
+			time = 0;
+			if (day >= current.size) {
+				// End of the index, extend it
+				final long tomorrow = current.days[current.size];
+				current = getIndex(tomorrow);
+				day = current.getDay(tomorrow);
+			}
+		}
+	}
+
+	/**
+	 * Return the start of the day containing the given instant.
+	 *
+	 * @param instant The instant, in milliseconds since the epoch.
+	 * @return The start of the day, in milliseconds since the epoch.
+	 */
+	public long toDayStart(final long instant) {
+		final Index current = getIndex(instant);
+		return current.days[current.getDay(instant)];
+	}
+
+	/**
+	 * Return the duration of the whole weeks covering the given business time at least, plus one day.
+	 */
+	private long toWeeks(final long businessTime) {
+		return (businessTime / weekDuration * 7 + 1) * DateUtils.MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Return the business time elapsed within a business day from its start to the given time.
+	 */
+	private long getBusinessTime(final long[] starts, final long[] ends, final long time) {
+		long result = 0;
+		for (int i = 0; i < starts.length && starts[i] < time; i++) {
+			result += Math.min(time, ends[i]) - starts[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Return an index containing the given instant.
+	 */
+	private Index getIndex(final long instant) {
+		final Index current = index;
+		if (current == null || !current.contains(instant)) {
+			return extend(instant);
+		}
+		return current;
+	}
+
+	/**
+	 * Build and publish a wider index containing the given instant. The extension is at least as large as the current
+	 * index to amortize the rebuilds.
+	 */
+	private synchronized Index extend(final long instant) {
+		final Index current = index;
+		if (current != null && current.contains(instant)) {
+			// Already extended by another thread
+			return current;
+		}
+		final long day = toEpochDay(instant);
+		long first = day - INDEX_PADDING;
+		long end = day + INDEX_PADDING;
+		int anchor = 0;
+		long anchorValue = 0;
+		if (current != null) {
+			if (day < current.first) {
+				first = Math.min(first, current.first - current.size);
+				end = current.first + current.size;
+			} else {
+				first = current.first;
+				end = Math.max(end, current.first + 2L * current.size);
+			}
+			// Keep the origin of the cumulative time
+			anchor = (int) (current.first - first);
+			anchorValue = current.cumulated[0];
+		}
+
+		final int size = (int) (end - first);
+		final long[] days = new long[size + 1];
+		for (int i = 0; i <= size; i++) {
+			days[i] = getDayStart(first + i);
+		}
+		final long[][] starts = new long[size][];
+		final long[][] ends = new long[size][];
+		for (int i = 0; i < size; i++) {
+			setRanges(first + i, days[i], days[i + 1] - days[i], starts, ends, i);
+		}
+		final BitSet closed = new BitSet(size);
+		final long[] durations = new long[size];
+		for (int i = 0; i < size; i++) {
+			durations[i] = getDayDuration(first + i, starts[i], ends[i]);
+			closed.set(i, durations[i] == 0);
+		}
+		final long[] cumulated = new long[size + 1];
+		cumulated[anchor] = anchorValue;
+		for (int i = anchor; i < size; i++) {
+			cumulated[i + 1] = cumulated[i] + durations[i];
+		}
+		for (int i = anchor; i-- > 0;) {
+			cumulated[i] = cumulated[i + 1] - durations[i];
+		}
+		final Index result = new Index(first, days, cumulated, closed, starts, ends);
+		index = result;
+		return result;
+	}
+
+	/**
+	 * Set the business hour ranges of a day relative to its start. The ranges of the weekly template are shared by the
+	 * 24 hours days, and are shifted with the wall clock for the other ones.
+	 */
+	private void setRanges(final long epochDay, final long dayStart, final long length, final long[][] starts,
+			final long[][] ends, final int day) {
+		final int dayOfWeek = toDayOfWeek(epochDay);
+		final long[] rangeStarts = this.rangeStarts[dayOfWeek];
+		final long[] rangeEnds = this.rangeEnds[dayOfWeek];
+		if (length == DateUtils.MILLIS_PER_DAY || rangeStarts.length == 0) {
+			starts[day] = rangeStarts;
+			ends[day] = rangeEnds;
+			return;
+		}
+
+		// Time zone offset transition within this day
+		final long[] dayStarts = new long[rangeStarts.length];
+		final long[] dayEnds = new long[rangeStarts.length];
+		int count = 0;
+		for (int i = 0; i < rangeStarts.length; i++) {
+			final long start = toElapsed(epochDay, dayStart, length, rangeStarts[i]);
+			final long end = toElapsed(epochDay, dayStart, length, rangeEnds[i]);
+			if (start < end) {
+				// This range has not been skipped by the transition
+				dayStarts[count] = start;
+				dayEnds[count++] = end;
+			}
+		}
+		starts[day] = Arrays.copyOf(dayStarts, count);
+		ends[day] = Arrays.copyOf(dayEnds, count);
+	}
+
+	/**
+	 * Return the time elapsed since the start of the given day at the given wall clock time.
+	 */
+	private long toElapsed(final long epochDay, final long dayStart, final long length, final long time) {
+		if (time >= DateUtils.MILLIS_PER_DAY) {
+			// End of the day
+			return length;
+		}
+		final long instant = LocalDate.ofEpochDay(epochDay).atStartOfDay().plus(time, ChronoUnit.MILLIS).atZone(zone)
+				.toInstant().toEpochMilli();
+		return Math.clamp(instant - dayStart, 0, length);
+	}
+
+	/**
+	 * Return the business time of a whole day.
+	 */
+	private long getDayDuration(final long epochDay, final long[] starts, final long[] ends) {
+		if (isHoliday(epochDay)) {
+			return 0;
+		}
+		if (starts == rangeStarts[toDayOfWeek(epochDay)]) {
+			// 24 hours day, or non working day, from the weekly template
+			return weekDurations[toDayOfWeek(epochDay)];
+		}
+		return getBusinessTime(starts, ends, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Indicate the given epoch day is a holiday, explicit or recurring.
+	 */
+	private boolean isHoliday(final long epochDay) {
+		final long holiday = epochDay - holidayBase;
+		if (holiday >= 0 && holiday < holidays.length() && holidays.get((int) holiday)) {
+			return true;
+		}
+		if (holidayRules.isEmpty()) {
+			return false;
+		}
+		final LocalDate date = LocalDate.ofEpochDay(epochDay);
+		return expandedYears.computeIfAbsent(date.getYear(), this::expand).get(date.getDayOfYear() - 1);
+	}
+
+	/**
+	 * Expand the recurring holidays falling within the given year. The adjacent years are expanded too, since an
+	 * offset may move a holiday across the new year.
+	 */
+	private BitSet expand(final int year) {
+		final BitSet result = new BitSet(366);
+		for (final HolidayRule rule : holidayRules) {
+			for (int ruleYear = year - 1; ruleYear <= year + 1; ruleYear++) {
+				final LocalDate date = rule.toDate(ruleYear);
+				if (date != null && date.getYear() == year) {
+					result.set(date.getDayOfYear() - 1);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the day of week of the given epoch day : 0 for Monday to 6 for Sunday.
+	 */
+	private static int toDayOfWeek(final long epochDay) {
+		return Math.floorMod(epochDay + 3, 7);
+	}
+
+	/**
+	 * Return the epoch day containing the given instant.
+	 */
+	private long toEpochDay(final long instant) {
+		final long offset = rules.getOffset(Instant.ofEpochMilli(instant)).getTotalSeconds() * 1000L;
+		return Math.floorDiv(instant + offset, DateUtils.MILLIS_PER_DAY);
+	}
+
+	/**
+	 * Return the start instant of the given epoch day.
+	 */
+	private long getDayStart(final long epochDay) {
+		if (rules.isFixedOffset()) {
+			// No transition, pure arithmetic
+			return epochDay * DateUtils.MILLIS_PER_DAY
+					- rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L;
+		}
+		return LocalDate.ofEpochDay(epochDay).atStartOfDay(zone).toInstant().toEpochMilli();
+	}
+}
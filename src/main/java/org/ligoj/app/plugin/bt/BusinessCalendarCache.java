@@ -0,0 +1,128 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.ligoj.app.plugin.bt.model.BugTrackerConfiguration;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.Calendar;
+import org.ligoj.app.plugin.bt.model.Holiday;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared cache of compiled {@link BusinessCalendar}. A compiled calendar depends only on the calendar and the business
+ * hours, so the subscriptions sharing the same ones share the same instance and its already extended index. The least
+ * recently used entries are evicted. The calendars built from raw holidays and business hours are keyed by their
+ * content.
+ */
+@Component
+public class BusinessCalendarCache {
+
+	/**
+	 * Maximal amount of compiled calendars.
+	 */
+	private static final int MAX_SIZE = 100;
+
+	/**
+	 * Compiled calendar key.
+	 *
+	 * @param calendar      The calendar identifier. <code>null</code> for the calendars keyed by content.
+	 * @param zone          The time zone identifier of the calendar. May be <code>null</code>.
+	 * @param workingDays   The working days of the calendar.
+	 * @param businessHours The business hour ranges signature.
+	 * @param holidays      The holidays signature of the calendars keyed by content, <code>null</code> otherwise.
+	 */
+	private record Key(Integer calendar, String zone, int workingDays, String businessHours, String holidays) {
+	}
+
+	/**
+	 * The compiled calendars in the access order.
+	 */
+	private final Map<Key, BusinessCalendar> calendars = new LinkedHashMap<>(16, 0.75f, true) {
+
+		/**
+		 * SID
+		 */
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Key, BusinessCalendar> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	/**
+	 * Return the compiled calendar of the given configuration. Built and cached when missing.
+	 *
+	 * @param configuration The bug tracker configuration providing the calendar and the business hours.
+	 * @return The compiled calendar. Never <code>null</code>.
+	 */
+	public BusinessCalendar getCalendar(final BugTrackerConfiguration configuration) {
+		final Calendar calendar = configuration.getCalendar();
+		final List<BusinessHours> businessHours = configuration.getBusinessHours();
+		final Key key = new Key(calendar.getId(), calendar.getZone(), calendar.toWorkingDays(),
+				toSignature(businessHours), null);
+		synchronized (calendars) {
+			return calendars.computeIfAbsent(key,
+					k -> new BusinessCalendar(calendar.getHolidays().stream().map(Holiday::getDate).toList(),
+							Objects.requireNonNullElse(calendar.getHolidayRules(), List.of()), businessHours,
+							calendar.toZoneId(), calendar.toWorkingDays()));
+		}
+	}
+
+	/**
+	 * Return the compiled calendar of the given holidays and business hours, Monday to Friday. Built and cached when
+	 * missing.
+	 *
+	 * @param holidays      the holiday list. Each day must be set to start of the day position in the default time
+	 *                      zone, as they are stored.
+	 * @param businessHours The business hour ranges. When empty, the whole day is a business period.
+	 * @param zone          The time zone of the days and the business hours.
+	 * @return The compiled calendar. Never <code>null</code>.
+	 */
+	public BusinessCalendar getCalendar(final List<Date> holidays, final List<BusinessHours> businessHours,
+			final ZoneId zone) {
+		final Key key = new Key(null, zone.getId(), Calendar.DEFAULT_WORKING_DAYS, toSignature(businessHours),
+				holidays.stream().map(d -> Long.toString(d.getTime())).collect(Collectors.joining(",")));
+		synchronized (calendars) {
+			return calendars.computeIfAbsent(key, k -> new BusinessCalendar(holidays, businessHours, zone));
+		}
+	}
+
+	/**
+	 * Return the signature of the given business hour ranges.
+	 */
+	private String toSignature(final List<BusinessHours> businessHours) {
+		return businessHours.stream().map(r -> r.getDayOfWeek() + ":" + r.getStart() + "-" + r.getEnd())
+				.collect(Collectors.joining(","));
+	}
+
+	/**
+	 * Evict all compiled calendars built from the given calendar. The calendars keyed by content may have been built
+	 * from this calendar too, and are evicted as well.
+	 *
+	 * @param calendar The calendar identifier.
+	 */
+	public void evict(final int calendar) {
+		synchronized (calendars) {
+			calendars.keySet().removeIf(k -> k.calendar() == null || k.calendar() == calendar);
+		}
+	}
+
+	/**
+	 * Evict all compiled calendars.
+	 */
+	public void clear() {
+		synchronized (calendars) {
+			calendars.clear();
+		}
+	}
+}
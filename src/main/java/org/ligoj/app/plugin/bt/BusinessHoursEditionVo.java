@@ -30,6 +30,13 @@ public class BusinessHoursEditionVo {
 	@Range(min = 0, max = DateUtils.MILLIS_PER_DAY)
 	private long end;
 
+	/**
+	 * ISO day of week, from 1 for Monday to 7 for Sunday. When <code>null</code>, every working day without specific
+	 * range.
+	 */
+	@Range(min = 1, max = 7)
+	private Integer dayOfWeek;
+
 	private int subscription;
 
 }
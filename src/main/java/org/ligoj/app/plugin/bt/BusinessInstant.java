@@ -0,0 +1,61 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.Date;
+
+/**
+ * An instant with its cumulative business time in a calendar, computed once. Used as the single "now" of a computation
+ * run, so all the open issues and SLA are measured against the same instant. Immutable.
+ */
+public class BusinessInstant {
+
+	/**
+	 * The instant, in milliseconds since the epoch.
+	 */
+	private final long instant;
+
+	/**
+	 * The cumulative business time at {@link #instant}. See {@link BusinessCalendar#toBusinessTime(long)}.
+	 */
+	private final long businessTime;
+
+	/**
+	 * Resolve the cumulative business time of the given instant.
+	 *
+	 * @param calendar The compiled business calendar.
+	 * @param instant  The instant, in milliseconds since the epoch.
+	 */
+	public BusinessInstant(final BusinessCalendar calendar, final long instant) {
+		this.instant = instant;
+		this.businessTime = calendar.toBusinessTime(instant);
+	}
+
+	/**
+	 * Return the instant.
+	 *
+	 * @return The instant, in milliseconds since the epoch.
+	 */
+	public long getInstant() {
+		return instant;
+	}
+
+	/**
+	 * Return the cumulative business time at this instant.
+	 *
+	 * @return The cumulative business time in milliseconds. Only comparable to the values of the same calendar.
+	 */
+	public long getBusinessTime() {
+		return businessTime;
+	}
+
+	/**
+	 * Return this instant as a new date.
+	 *
+	 * @return A new date of this instant.
+	 */
+	public Date toDate() {
+		return new Date(instant);
+	}
+}
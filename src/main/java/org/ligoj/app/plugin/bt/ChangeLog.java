@@ -0,0 +1,315 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.IssueDetails;
+
+/**
+ * Columnar changelog of several issues. Each change is a row of parallel primitive arrays, and the details of an issue
+ * are stored once in parallel primitive arrays indexed by the issue order of appearance. The texts are interned in a
+ * single table. Not thread safe while being filled.
+ */
+public class ChangeLog {
+
+	/**
+	 * Value of a missing integer : issue identifier, status, priority, resolution, or time. Changes without issue
+	 * identifier are grouped under this value.
+	 */
+	public static final int NO_VALUE = Integer.MIN_VALUE;
+
+	/**
+	 * Value of a missing date.
+	 */
+	public static final long NO_DATE = Long.MIN_VALUE;
+
+	/**
+	 * Value of a missing text.
+	 */
+	private static final int NO_TEXT = -1;
+
+	/**
+	 * Amount of changes.
+	 */
+	private int size;
+
+	/**
+	 * Issue index of each change.
+	 */
+	private int[] issues;
+
+	/**
+	 * Previous status of each change. {@link #NO_VALUE} for a creation.
+	 */
+	private int[] fromStatuses;
+
+	/**
+	 * New status of each change.
+	 */
+	private int[] toStatuses;
+
+	/**
+	 * Creation timestamp of each change.
+	 */
+	private long[] created;
+
+	/**
+	 * Issue index by issue identifier.
+	 */
+	private final IntIndex issueIndexes = new IntIndex();
+
+	/**
+	 * Issue details, indexed by issue index.
+	 */
+	private int[] pkeys = new int[16];
+	private int[] reporters = new int[16];
+	private int[] assignees = new int[16];
+	private int[] statuses = new int[16];
+	private int[] types = new int[16];
+	private int[] priorities = new int[16];
+	private int[] resolutions = new int[16];
+	private int[] timeSpents = new int[16];
+	private int[] timeEstimates = new int[16];
+	private int[] timeEstimateInits = new int[16];
+	private long[] issueCreated = new long[16];
+	private long[] dueDates = new long[16];
+
+	/**
+	 * Interned texts.
+	 */
+	private final List<String> texts = new ArrayList<>();
+
+	/**
+	 * Text index by text.
+	 */
+	private final Map<String, Integer> textIndexes = new HashMap<>();
+
+	/**
+	 * Create an empty changelog.
+	 */
+	public ChangeLog() {
+		this(16);
+	}
+
+	/**
+	 * Create an empty changelog.
+	 *
+	 * @param capacity The initial amount of changes.
+	 */
+	public ChangeLog(final int capacity) {
+		this.issues = new int[capacity];
+		this.fromStatuses = new int[capacity];
+		this.toStatuses = new int[capacity];
+		this.created = new long[capacity];
+	}
+
+	/**
+	 * Add a change. The details of the issue are taken from its first change.
+	 *
+	 * @param change The change to add.
+	 */
+	public void add(final ChangeItem change) {
+		addIssue(change);
+		add(toInt(change.getId()), toInt(change.getFromStatus()), change.getToStatus(), change.getCreated().getTime());
+	}
+
+	/**
+	 * Register an issue with its details. Ignored when the issue is already registered.
+	 *
+	 * @param issue The issue details.
+	 * @return The issue index.
+	 */
+	public int addIssue(final IssueDetails issue) {
+		final int id = toInt(issue.getId());
+		final int existing = issueIndexes.indexOf(id);
+		if (existing >= 0) {
+			return existing;
+		}
+		final int index = issueIndexes.add(id);
+		if (index == pkeys.length) {
+			growIssues(index * 2);
+		}
+		pkeys[index] = intern(issue.getPkey());
+		reporters[index] = intern(issue.getReporter());
+		assignees[index] = intern(issue.getAssignee());
+		statuses[index] = issue.getStatus();
+		types[index] = issue.getType();
+		priorities[index] = toInt(issue.getPriority());
+		resolutions[index] = toInt(issue.getResolution());
+		timeSpents[index] = toInt(issue.getTimeSpent());
+		timeEstimates[index] = toInt(issue.getTimeEstimate());
+		timeEstimateInits[index] = toInt(issue.getTimeEstimateInit());
+		issueCreated[index] = toLong(issue.getCreated());
+		dueDates[index] = toLong(issue.getDueDate());
+		return index;
+	}
+
+	/**
+	 * Add a change of a registered issue.
+	 *
+	 * @param issue      The issue identifier, {@link #NO_VALUE} for a change without issue identifier. See
+	 *                   {@link #addIssue(IssueDetails)}.
+	 * @param fromStatus The previous status, {@link #NO_VALUE} for a creation.
+	 * @param toStatus   The new status.
+	 * @param timestamp  The creation timestamp of the change.
+	 */
+	public void add(final int issue, final int fromStatus, final int toStatus, final long timestamp) {
+		final int index = issueIndexes.indexOf(issue);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unregistered issue " + issue);
+		}
+		if (size == created.length) {
+			final int capacity = Math.max(16, size * 2);
+			issues = Arrays.copyOf(issues, capacity);
+			fromStatuses = Arrays.copyOf(fromStatuses, capacity);
+			toStatuses = Arrays.copyOf(toStatuses, capacity);
+			created = Arrays.copyOf(created, capacity);
+		}
+		issues[size] = index;
+		fromStatuses[size] = fromStatus;
+		toStatuses[size] = toStatus;
+		created[size] = timestamp;
+		size++;
+	}
+
+	/**
+	 * Return the amount of changes.
+	 *
+	 * @return The amount of changes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the amount of issues.
+	 *
+	 * @return The amount of issues.
+	 */
+	public int getIssueCount() {
+		return issueIndexes.size();
+	}
+
+	/**
+	 * Return the issue index of a change.
+	 *
+	 * @param change The change index.
+	 * @return The issue index, in the order of appearance.
+	 */
+	public int getIssue(final int change) {
+		return issues[change];
+	}
+
+	/**
+	 * Return the previous status of a change.
+	 *
+	 * @param change The change index.
+	 * @return The previous status, {@link #NO_VALUE} for a creation.
+	 */
+	public int getFromStatus(final int change) {
+		return fromStatuses[change];
+	}
+
+	/**
+	 * Return the new status of a change.
+	 *
+	 * @param change The change index.
+	 * @return The new status.
+	 */
+	public int getToStatus(final int change) {
+		return toStatuses[change];
+	}
+
+	/**
+	 * Return the creation timestamp of a change.
+	 *
+	 * @param change The change index.
+	 * @return The creation timestamp.
+	 */
+	public long getCreated(final int change) {
+		return created[change];
+	}
+
+	/**
+	 * Return the details of an issue.
+	 *
+	 * @param issue The issue index.
+	 * @return A new issue details instance.
+	 */
+	public IssueDetails toIssueDetails(final int issue) {
+		final IssueDetails details = new IssueDetails();
+		details.setId(toInteger(issueIndexes.getKey(issue)));
+		details.setPkey(getText(pkeys[issue]));
+		details.setReporter(getText(reporters[issue]));
+		details.setAssignee(getText(assignees[issue]));
+		details.setStatus(statuses[issue]);
+		details.setType(types[issue]);
+		details.setPriority(toInteger(priorities[issue]));
+		details.setResolution(toInteger(resolutions[issue]));
+		details.setTimeSpent(toInteger(timeSpents[issue]));
+		details.setTimeEstimate(toInteger(timeEstimates[issue]));
+		details.setTimeEstimateInit(toInteger(timeEstimateInits[issue]));
+		details.setCreated(toDate(issueCreated[issue]));
+		details.setDueDate(toDate(dueDates[issue]));
+		return details;
+	}
+
+	/**
+	 * Resize the issue details arrays.
+	 */
+	private void growIssues(final int capacity) {
+		pkeys = Arrays.copyOf(pkeys, capacity);
+		reporters = Arrays.copyOf(reporters, capacity);
+		assignees = Arrays.copyOf(assignees, capacity);
+		statuses = Arrays.copyOf(statuses, capacity);
+		types = Arrays.copyOf(types, capacity);
+		priorities = Arrays.copyOf(priorities, capacity);
+		resolutions = Arrays.copyOf(resolutions, capacity);
+		timeSpents = Arrays.copyOf(timeSpents, capacity);
+		timeEstimates = Arrays.copyOf(timeEstimates, capacity);
+		timeEstimateInits = Arrays.copyOf(timeEstimateInits, capacity);
+		issueCreated = Arrays.copyOf(issueCreated, capacity);
+		dueDates = Arrays.copyOf(dueDates, capacity);
+	}
+
+	/**
+	 * Return the index of the given text, added when not yet interned.
+	 */
+	private int intern(final String text) {
+		if (text == null) {
+			return NO_TEXT;
+		}
+		return textIndexes.computeIfAbsent(text, t -> {
+			texts.add(t);
+			return texts.size() - 1;
+		});
+	}
+
+	private String getText(final int index) {
+		return index == NO_TEXT ? null : texts.get(index);
+	}
+
+	private static int toInt(final Integer value) {
+		return value == null ? NO_VALUE : value;
+	}
+
+	private static Integer toInteger(final int value) {
+		return value == NO_VALUE ? null : value;
+	}
+
+	private static long toLong(final Date value) {
+		return value == null ? NO_DATE : value.getTime();
+	}
+
+	private static Date toDate(final long value) {
+		return value == NO_DATE ? null : new Date(value);
+	}
+}
@@ -4,15 +4,12 @@
 package org.ligoj.app.plugin.bt;
 
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 import org.apache.commons.lang3.time.DateUtils;
 import org.ligoj.app.plugin.bt.model.BusinessHours;
 
-import lombok.Getter;
-
 /**
  * A computation context for a fixed start and end dates.
  *
@@ -21,41 +18,19 @@ import lombok.Getter;
 public class ComputationContext {
 
 	/**
-	 * The cursor date only, at 0:00 00.000. Truncated to {@link Calendar#DATE}
-	 */
-	@Getter
-	private Date cursor;
-
-	/**
-	 * The non-business days. Each day must be set to start of the day position.
-	 */
-	private final List<Date> holidays;
-
-	/**
-	 * The non-business hour ranges. Never empty or must be sorted.
-	 */
-	private final List<BusinessHours> businessHours;
-
-	/**
-	 * Last read holiday index within {@link #holidays}
-	 */
-	private int holidayCursor;
-
-	/**
-	 * Current computed delta value.
+	 * Value of {@link #position} before the first reset.
 	 */
-	private long delta;
+	private static final long NO_POSITION = Long.MIN_VALUE;
 
 	/**
-	 * Time cursor with a day. Between 0 and {@link DateUtils#MILLIS_PER_DAY}
+	 * The compiled business calendar.
 	 */
-	@Getter
-	private long cursorTime;
+	private final BusinessCalendar calendar;
 
 	/**
-	 * The current index of time range within {@link #businessHours}..
+	 * The cursor position, in milliseconds since the epoch. Always a business instant once reset.
 	 */
-	private int cursorBusinessHour;
+	private long position = NO_POSITION;
 
 	/**
 	 * initialize the computation context.
@@ -66,16 +41,17 @@ public class ComputationContext {
 	 *            The business hour ranges. May be empty or must be sorted, and first range must start with 0:00 00.000.
 	 */
 	public ComputationContext(final List<Date> holidays, final List<BusinessHours> businessHours) {
-		this.holidays = holidays;
-		if (businessHours.isEmpty()) {
-			// Whole day is a working day
-			final BusinessHours businessHour = new BusinessHours();
-			businessHour.setStart(0);
-			businessHour.setEnd(DateUtils.MILLIS_PER_DAY);
-			this.businessHours = Collections.singletonList(businessHour);
-		} else {
-			this.businessHours = businessHours;
-		}
+		this(new BusinessCalendar(holidays, businessHours));
+	}
+
+	/**
+	 * initialize the computation context from a compiled calendar. The same calendar can be shared by several contexts.
+	 *
+	 * @param calendar
+	 *            the compiled business calendar.
+	 */
+	public ComputationContext(final BusinessCalendar calendar) {
+		this.calendar = calendar;
 	}
 
 	/**
@@ -86,95 +62,61 @@ public class ComputationContext {
 	 *            the initial date.
 	 */
 	public void reset(final Date start) {
-		this.cursor = new Date(DateUtils.truncate(start, Calendar.DATE).getTime());
-		this.holidayCursor = 0;
-		this.cursorTime = getTime(start);
-		moveToNextBusiness();
+		reset(start.getTime());
 	}
 
 	/**
-	 * Move the cursors to next valid business days, business hours and time. No updated delta.
+	 * Set the initial instant. This instant will be moved forward until to find the closest opening day and the
+	 * business hour.
+	 *
+	 * @param start
+	 *            the initial instant, in milliseconds since the epoch.
 	 */
-	public void moveToNextBusiness() {
-		moveToNextBusinessDay();
-		moveToNextBusinessHour();
+	public void reset(final long start) {
+		position = calendar.toNextBusiness(start);
 	}
 
 	/**
-	 * Move the cursors to the next business hour. No updated delta.
+	 * Indicate this context has been reset at least once.
+	 *
+	 * @return <code>true</code> when the cursor is set.
 	 */
-	private void moveToNextBusinessHour() {
-		for (cursorBusinessHour = 0; cursorBusinessHour < businessHours.size(); cursorBusinessHour++) {
-			final BusinessHours range = businessHours.get(cursorBusinessHour);
-			if (cursorTime <= range.getStart()) {
-				// The current range is the closest business hours range
-				cursorTime = range.getStart();
-				return;
-			}
-			if (cursorTime < range.getEnd()) {
-				// The current range is the right business hours range
-				return;
-			}
-		}
-
-		// End of current period, need to move to next day and business range again
-		moveToTomorrow();
+	public boolean isReset() {
+		return position != NO_POSITION;
 	}
 
 	/**
-	 * Return the next business day : business day of week and not a holiday. No updated delta.
+	 * Return the cursor date only, at 0:00 00.000. Truncated to {@link Calendar#DATE}
+	 *
+	 * @return The cursor date or <code>null</code> when not yet reset.
 	 */
-	private void moveToNextBusinessDay() {
-		Date previousDate;
-		do {
-			previousDate = cursor;
-			moveToNextBusinessDayOfWeek();
-			moveToNextNotHoliday();
-		} while (!cursor.equals(previousDate));
+	public Date getCursor() {
+		return isReset() ? new Date(calendar.toDayStart(position)) : null;
 	}
 
 	/**
-	 * Move the date to the next day that is not a holiday. No updated delta.
+	 * Return the time cursor with a day. Between 0 and {@link DateUtils#MILLIS_PER_DAY}
+	 *
+	 * @return The time cursor within the day.
 	 */
-	private void moveToNextNotHoliday() {
-		while (holidayCursor < holidays.size()) {
-			final Date holiday = holidays.get(holidayCursor);
-			if (holiday.getTime() > cursor.getTime()) {
-				// The date is before the first known holiday
-				break;
-			}
-
-			// Either it's a holiday, either we have to skip increase cursor
-			holidayCursor++;
-			if (DateUtils.isSameDay(holiday, cursor)) {
-				// The date is a holiday, go to the next day 00:00 00.000
-				moveToTomorrow();
-			}
-			// The holiday cursor is too old, advance it only
-		}
-
-		// All holidays are before this date
+	public long getCursorTime() {
+		return isReset() ? position - calendar.toDayStart(position) : 0;
 	}
 
 	/**
-	 * Move the date to the next business day of week. No updated delta.
+	 * Return the cursor position.
+	 *
+	 * @return The cursor position, in milliseconds since the epoch.
 	 */
-	private void moveToNextBusinessDayOfWeek() {
-		final int dow = DateUtils.toCalendar(cursor).get(Calendar.DAY_OF_WEEK);
-		if (dow == Calendar.SUNDAY || dow == Calendar.SATURDAY) {
-			// Sunday/Saturday --> Monday 00:00 00.000
-			moveToTomorrow();
-		}
+	public long getPosition() {
+		return position;
 	}
 
 	/**
-	 * Move the cursors to tomorrow, then the next business time. No updated delta.
+	 * Move the cursors to next valid business days, business hours and time. No updated delta.
 	 */
-	private void moveToTomorrow() {
-		cursor = DateUtils.ceiling(cursor, Calendar.DATE);
-		cursorBusinessHour = 0;
-		cursorTime = businessHours.getFirst().getStart();
-		moveToNextBusiness();
+	public void moveToNextBusiness() {
+		position = calendar.toNextBusiness(position);
 	}
 
 	/**
@@ -186,18 +128,25 @@ public class ComputationContext {
 	 * @return time duration in milliseconds between start and end date. The returned value is a positive number.
 	 */
 	public long moveForward(final Date end) {
-		this.delta = 0;
-		while (cursor.getTime() + cursorTime < end.getTime()) {
-			// We need to move the cursors
-			if (DateUtils.isSameDay(cursor, end)) {
-				// We need to compute the elapsed ranges and hours within the same day
-				computeDelayTodayToTime(getTime(end));
-			} else {
-				// Move to the end of this day
-				computeDelayTodayToTime(DateUtils.MILLIS_PER_DAY);
-			}
+		return moveForwardTo(end.getTime());
+	}
+
+	/**
+	 * Compute business time duration in milliseconds between last known (or initial instant) and the given instant.
+	 *
+	 * @param end
+	 *            The end instant for delta computation, in milliseconds since the epoch. This instant should be after
+	 *            the last known one or will return <code>0</code>.
+	 * @return time duration in milliseconds between start and end instant. The returned value is a positive number.
+	 */
+	public long moveForwardTo(final long end) {
+		if (position < end) {
+			// Business time is read from the calendar index, then the cursor is moved to the closest business time
+			final long delta = calendar.getDuration(position, end);
+			position = calendar.toNextBusiness(end);
+			return delta;
 		}
-		return delta;
+		return 0;
 	}
 
 	/**
@@ -208,58 +157,21 @@ public class ComputationContext {
 	 * @return The new date.
 	 */
 	public Date moveForward(final long duration) {
-		long remainingDuration = duration;
-		while (remainingDuration > 0) {
-			this.delta = 0;
-
-			// We need to move the cursors
-			computeDelayTodayToTime(Math.min(cursorTime + remainingDuration, DateUtils.MILLIS_PER_DAY));
-			remainingDuration -= delta;
-		}
-
-		// Return the new date
-		return new Date(cursor.getTime() + getCursorTime());
+		return new Date(moveForwardBy(duration));
 	}
 
 	/**
-	 * Compute the elapsed time within the same day, and move forward to the starting day of closest next business hour.
-	 * Midnight stills considered as same day since the end bound is excluded.
+	 * Advance the cursor with the given business duration.
+	 *
+	 * @param duration
+	 *            Duration to add to current instant. Business hours are considered.
+	 * @return The new instant, in milliseconds since the epoch.
 	 */
-	private void computeDelayTodayToTime(final long time) {
-		// Move from the position of current index of business hours range
-		while (cursorBusinessHour < businessHours.size()) {
-			final BusinessHours range = businessHours.get(cursorBusinessHour);
-			if (cursorTime < range.getStart()) {
-				// Update the time cursor to the start of this closest range, no updated delay
-				cursorTime = range.getStart();
-				return;
-			}
-			if (time < range.getEnd()) {
-				// target time ends before the end of current business hours range
-				delta += time - cursorTime;
-				cursorTime = time;
-				return;
-			}
-
-			// Current range is completed
-			delta += range.getEnd() - cursorTime;
-			cursorTime = range.getEnd();
-
-			// Move to the next range
-			cursorBusinessHour++;
+	public long moveForwardBy(final long duration) {
+		if (duration > 0) {
+			// The target is found from the cumulative business time, without walking the days
+			position = calendar.toInstant(calendar.toBusinessTime(position) + duration);
 		}
-
-		// End of day reached, move to the next business day
-		moveToTomorrow();
-	}
-
-	/**
-	 * Return the milliseconds of given date. Year, month and day fields are ignored.
-	 */
-	private long getTime(final Date date) {
-		final Calendar calendar = DateUtils.toCalendar(date);
-		return calendar.get(Calendar.HOUR_OF_DAY) * DateUtils.MILLIS_PER_HOUR
-				+ calendar.get(Calendar.MINUTE) * DateUtils.MILLIS_PER_MINUTE
-				+ calendar.get(Calendar.SECOND) * DateUtils.MILLIS_PER_SECOND + calendar.get(Calendar.MILLISECOND);
+		return position;
 	}
 }
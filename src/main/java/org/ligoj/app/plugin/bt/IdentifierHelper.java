@@ -3,13 +3,10 @@
  */
 package org.ligoj.app.plugin.bt;
 
-import java.text.Format;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -53,24 +50,24 @@ public class IdentifierHelper {
 	 * @param mapping
 	 *            The mapping associating identifier and text.
 	 * @return the corresponding identifiers. Order is preserved.
+	 * @see #getIndex(Map)
 	 */
 	public final Set<Integer> toIdentifiers(final String texts, final Map<Integer, String> mapping) {
-		final Set<Integer> result = new LinkedHashSet<>();
-		for (final String text : StringUtils.split(StringUtils.trimToEmpty(texts), ',')) {
-			extracted(mapping, text, result);
-		}
-		return result;
+		return getIndex(mapping).toIdentifiers(texts);
 	}
 
-	private void extracted(final Map<Integer, String> allStatus, final String originalStatus,
-			final Set<Integer> targetIndentifiers) {
-		final Format format = new NormalizeFormat();
-		final String text = format.format(originalStatus);
-		for (final Entry<Integer, String> status : allStatus.entrySet()) {
-			if (format.format(status.getValue()).equals(text)) {
-				targetIndentifiers.add(status.getKey());
-			}
-		}
+	/**
+	 * Return a new index of the given mapping. The index does not follow the
+	 * later changes of the mapping. The callers resolving several texts of the
+	 * same mapping should keep the returned index rather than calling
+	 * {@link #toIdentifiers(String, Map)} for each text.
+	 *
+	 * @param mapping
+	 *            The mapping associating identifier and text.
+	 * @return The index of the mapping. Never <code>null</code>.
+	 */
+	public IdentifierIndex getIndex(final Map<Integer, String> mapping) {
+		return new IdentifierIndex(mapping);
 	}
 
 }
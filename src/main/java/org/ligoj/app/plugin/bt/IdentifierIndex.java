@@ -0,0 +1,76 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.text.Format;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.resource.NormalizeFormat;
+
+/**
+ * Index of identifiers by normalized text, built once from a mapping associating identifier and text. Several
+ * identifiers may share the same normalized text. Immutable and thread safe once built.
+ */
+public class IdentifierIndex {
+
+	private static final int[] NONE = new int[0];
+
+	/**
+	 * Identifiers by normalized text, in the iteration order of the mapping.
+	 */
+	private final Map<String, int[]> identifiers = new HashMap<>();
+
+	/**
+	 * Build the index of the given mapping.
+	 *
+	 * @param mapping
+	 *            The mapping associating identifier and text.
+	 */
+	public IdentifierIndex(final Map<Integer, String> mapping) {
+		final Format format = new NormalizeFormat();
+		mapping.forEach((id, text) -> identifiers.merge(format.format(text), new int[] { id }, (a, b) -> {
+			final int[] merged = Arrays.copyOf(a, a.length + 1);
+			merged[a.length] = b[0];
+			return merged;
+		}));
+	}
+
+	/**
+	 * Return the identifiers of the given text.
+	 *
+	 * @param text
+	 *            The text, normalized or not.
+	 * @return The identifiers in the iteration order of the mapping. Empty when not found.
+	 */
+	public int[] getIdentifiers(final String text) {
+		return getIdentifiers(new NormalizeFormat(), text).clone();
+	}
+
+	private int[] getIdentifiers(final Format format, final String text) {
+		return identifiers.getOrDefault(format.format(text), NONE);
+	}
+
+	/**
+	 * Transform the string containing comma separated texts to the corresponding identifiers.
+	 *
+	 * @param texts
+	 *            the string containing comma separated texts.
+	 * @return the corresponding identifiers. Order is preserved.
+	 */
+	public Set<Integer> toIdentifiers(final String texts) {
+		final Format format = new NormalizeFormat();
+		final Set<Integer> result = new LinkedHashSet<>();
+		for (final String text : StringUtils.split(StringUtils.trimToEmpty(texts), ',')) {
+			for (final int id : getIdentifiers(format, text)) {
+				result.add(id);
+			}
+		}
+		return result;
+	}
+}
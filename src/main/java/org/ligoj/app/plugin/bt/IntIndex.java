@@ -0,0 +1,124 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing index of <code>int</code> keys, associating each key to a dense index in insertion order. The
+ * associated values are stored by the caller in arrays indexed by this dense index, so neither the keys nor the values
+ * are boxed. Keys cannot be removed. Not thread safe.
+ */
+public class IntIndex {
+
+	/**
+	 * Hash table of the dense indexes plus one. <code>0</code> for a free slot. The length is a power of two.
+	 */
+	private int[] table;
+
+	/**
+	 * Keys in insertion order.
+	 */
+	private int[] keys;
+
+	/**
+	 * Amount of keys.
+	 */
+	private int size;
+
+	/**
+	 * Create an empty index.
+	 */
+	public IntIndex() {
+		this(8);
+	}
+
+	/**
+	 * Create an empty index.
+	 *
+	 * @param capacity The expected amount of keys.
+	 */
+	public IntIndex(final int capacity) {
+		this.keys = new int[Math.max(capacity, 4)];
+		this.table = new int[Integer.highestOneBit(keys.length * 2 - 1) << 1];
+	}
+
+	/**
+	 * Return the dense index of the given key.
+	 *
+	 * @param key The key to find.
+	 * @return The dense index, or <code>-1</code> when the key is unknown.
+	 */
+	public int indexOf(final int key) {
+		final int mask = table.length - 1;
+		for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+			final int index = table[slot] - 1;
+			if (index < 0 || keys[index] == key) {
+				return index;
+			}
+		}
+	}
+
+	/**
+	 * Return the dense index of the given key, added when unknown.
+	 *
+	 * @param key The key to add.
+	 * @return The dense index, equals to the previous {@link #size()} for a new key.
+	 */
+	public int add(final int key) {
+		final int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		for (; table[slot] != 0; slot = (slot + 1) & mask) {
+			if (keys[table[slot] - 1] == key) {
+				return table[slot] - 1;
+			}
+		}
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+		}
+		keys[size] = key;
+		table[slot] = ++size;
+		if (size * 2 > table.length) {
+			// Keep the load factor under 1/2
+			rehash(table.length * 2);
+		}
+		return size - 1;
+	}
+
+	/**
+	 * Return the key of the given dense index.
+	 *
+	 * @param index The dense index, lower than {@link #size()}.
+	 * @return The key.
+	 */
+	public int getKey(final int index) {
+		return keys[index];
+	}
+
+	/**
+	 * Return the amount of keys.
+	 *
+	 * @return The amount of keys.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void rehash(final int capacity) {
+		table = new int[capacity];
+		final int mask = capacity - 1;
+		for (int index = 0; index < size; index++) {
+			int slot = hash(keys[index]) & mask;
+			while (table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = index + 1;
+		}
+	}
+
+	private static int hash(final int key) {
+		final int hash = key * 0x9E3779B9;
+		return hash ^ hash >>> 16;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of the provider metadata of each subscription : statuses, types, priorities and resolutions. On a miss, the
+ * metadata is fetched in the thread, the transaction and the security context of the caller, and concurrent misses of
+ * the same subscription share the same fetch. Entries expire after a configured time to live, and can be evicted
+ * explicitly.
+ */
+@Component
+public class ProviderMetadataCache {
+
+	/**
+	 * Time to live of the metadata, in milliseconds.
+	 */
+	@Value("${ligoj.bt.metadata.ttl:300000}")
+	protected long ttl = 300000;
+
+	/**
+	 * Provider metadata of a subscription.
+	 *
+	 * @param statuses    The available statuses.
+	 * @param types       The available types.
+	 * @param priorities  The available priorities.
+	 * @param resolutions The available resolutions.
+	 */
+	public record Metadata(Set<String> statuses, Set<String> types, Set<String> priorities, Set<String> resolutions) {
+	}
+
+	/**
+	 * A cached fetch.
+	 *
+	 * @param metadata The metadata, possibly not yet fetched.
+	 * @param expires  The expiration timestamp.
+	 */
+	record Entry(CompletableFuture<Metadata> metadata, long expires) {
+	}
+
+	/**
+	 * Cached fetches, by subscription. The expired entries are purged on the next miss.
+	 */
+	protected final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the provider metadata of the given subscription. Fetched and cached when missing or expired.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @param provider     The provider of the subscription.
+	 * @return The metadata. Never <code>null</code>.
+	 * @throws IOException When the metadata cannot be read from the provider. Failures are not cached.
+	 */
+	public Metadata getMetadata(final int subscription, final BugTrackerServicePlugin provider) throws IOException {
+		final long now = System.currentTimeMillis();
+		final CompletableFuture<Metadata> fetch = new CompletableFuture<>();
+		final Entry entry = entries.compute(subscription,
+				(k, v) -> v == null || v.expires() <= now ? new Entry(fetch, now + ttl) : v);
+		if (entry.metadata() == fetch) {
+			// Miss, the other expired entries are purged
+			entries.values().removeIf(v -> v != entry && v.expires() <= now);
+			try {
+				fetch.complete(new Metadata(provider.getStatuses(subscription), provider.getTypes(subscription),
+						provider.getPriorities(subscription), provider.getResolutions(subscription)));
+			} catch (final IOException | RuntimeException | Error e) {
+				// Next call will retry
+				entries.remove(subscription, entry);
+				fetch.completeExceptionally(e);
+				throw e;
+			}
+		}
+		try {
+			return entry.metadata().join();
+		} catch (final CompletionException e) {
+			// Failure of the fetch shared with another caller
+			if (e.getCause() instanceof IOException io) {
+				throw io;
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Evict the metadata of the given subscription.
+	 *
+	 * @param subscription The subscription identifier.
+	 */
+	public void evict(final int subscription) {
+		entries.remove(subscription);
+	}
+
+	/**
+	 * Evict all metadata.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+}
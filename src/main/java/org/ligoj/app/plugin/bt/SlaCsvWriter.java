@@ -0,0 +1,186 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Write the computed issues as CSV, one row per issue and five columns per SLA. Each row is built in a reused buffer,
+ * and the header is built once from the SLA configurations.
+ */
+public class SlaCsvWriter implements SlaWriter {
+
+	/**
+	 * Column separator.
+	 */
+	private static final char SEPARATOR = ';';
+
+	/**
+	 * Headers of the issue columns.
+	 */
+	private static final String[] ISSUE_HEADERS = { "id", "pkey", "created", "status", "type", "priority", "resolution",
+			"reporter", "assignee", "dueDate", "timeSpent", "timeEstimate", "timeEstimateInit" };
+
+	/**
+	 * Headers of the columns of each SLA, appended to the SLA name.
+	 */
+	private static final String[] SLA_HEADERS = { "duration", "start", "stop", "revisedDueDate",
+			"revisedDueDateDistance" };
+
+	private final Writer writer;
+
+	/**
+	 * Date format, in the calendar zone.
+	 */
+	private final DateTimeFormatter format;
+
+	/**
+	 * Amount of SLA.
+	 */
+	private final int slas;
+
+	/**
+	 * Reused row buffer.
+	 */
+	private final StringBuilder row = new StringBuilder(256);
+
+	/**
+	 * Reused characters of the row buffer.
+	 */
+	private char[] chars = new char[256];
+
+	/**
+	 * When <code>true</code>, all issues have been written.
+	 */
+	private boolean finished;
+
+	/**
+	 * Write the header with the SLA configurations.
+	 *
+	 * @param output            The target output.
+	 * @param slaConfigurations The SLA configurations of the computed issues.
+	 * @param zone              The zone of the written dates.
+	 * @throws IOException When the output cannot be written.
+	 */
+	public SlaCsvWriter(final OutputStream output, final List<SlaConfiguration> slaConfigurations, final ZoneId zone)
+			throws IOException {
+		this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16);
+		this.format = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss").withZone(zone);
+		this.slas = slaConfigurations.size();
+		for (final String header : ISSUE_HEADERS) {
+			appendText(header).append(SEPARATOR);
+		}
+		for (final SlaConfiguration sla : slaConfigurations) {
+			for (final String header : SLA_HEADERS) {
+				appendText(sla.getName() + " " + header).append(SEPARATOR);
+			}
+		}
+		flushRow();
+	}
+
+	@Override
+	public void accept(final IssueSla issue) {
+		append(issue.getId());
+		appendText(issue.getPkey()).append(SEPARATOR);
+		append(issue.getCreated());
+		append(issue.getStatus());
+		append(issue.getType());
+		append(issue.getPriority());
+		append(issue.getResolution());
+		appendText(issue.getReporter()).append(SEPARATOR);
+		appendText(issue.getAssignee()).append(SEPARATOR);
+		append(issue.getDueDate());
+		append(issue.getTimeSpent());
+		append(issue.getTimeEstimate());
+		append(issue.getTimeEstimateInit());
+		for (int index = 0; index < slas; index++) {
+			final SlaData data = issue.getData().get(index);
+			if (data == null) {
+				// Not applicable SLA
+				row.append(SEPARATOR).append(SEPARATOR).append(SEPARATOR).append(SEPARATOR).append(SEPARATOR);
+			} else {
+				row.append(data.getDuration()).append(SEPARATOR);
+				append(data.getStart());
+				append(data.getStop());
+				append(data.getRevisedDueDate());
+				append(data.getRevisedDueDateDistance());
+			}
+		}
+		try {
+			flushRow();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		finished = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (finished) {
+			writer.close();
+		} else {
+			// Keep the compressed output unterminated, the target output is released by its owner
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Write the row buffer without the last separator, then reset it.
+	 */
+	private void flushRow() throws IOException {
+		row.setCharAt(row.length() - 1, '\n');
+		final int length = row.length();
+		if (length > chars.length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+
+		// Copied to a reused array, appending the builder would allocate a string per row
+		row.getChars(0, length, chars, 0);
+		writer.write(chars, 0, length);
+		row.setLength(0);
+	}
+
+	private void append(final Object value) {
+		if (value != null) {
+			row.append(value);
+		}
+		row.append(SEPARATOR);
+	}
+
+	private void append(final Date value) {
+		if (value != null) {
+			format.formatTo(Instant.ofEpochMilli(value.getTime()), row);
+		}
+		row.append(SEPARATOR);
+	}
+
+	/**
+	 * Append a text, quoted when it contains a separator, a quote or a line break.
+	 */
+	private StringBuilder appendText(final String text) {
+		if (text == null) {
+			return row;
+		}
+		if (text.indexOf(SEPARATOR) < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0
+				&& text.indexOf('\r') < 0) {
+			return row.append(text);
+		}
+		return row.append('"').append(text.replace("\"", "\"\"")).append('"');
+	}
+}
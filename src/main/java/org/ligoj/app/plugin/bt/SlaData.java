@@ -41,4 +41,21 @@ public class SlaData {
 	 * The first time the workflow stopped. May be <code>null</code>.
 	 */
 	private Date stop;
+
+	/**
+	 * Indicate the duration exceeds the threshold of the SLA. <code>null</code> when the SLA has no threshold.
+	 */
+	private Boolean breached;
+
+	/**
+	 * Business time remaining before the threshold of the SLA, in milliseconds. Negative when breached.
+	 * <code>null</code> when the SLA has no threshold.
+	 */
+	private Long remaining;
+
+	/**
+	 * Projected instant the threshold of the SLA will be breached at, when the workflow is running and not yet
+	 * breached. <code>null</code> otherwise.
+	 */
+	private Date breachDate;
 }
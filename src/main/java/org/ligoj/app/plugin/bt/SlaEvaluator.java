@@ -0,0 +1,466 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import org.ligoj.app.plugin.bt.model.CompiledSla;
+import org.ligoj.app.plugin.bt.model.IdentifierSet;
+import org.ligoj.app.plugin.bt.model.IssueDetails;
+import org.ligoj.app.plugin.bt.model.Sla;
+
+/**
+ * Compiled SLA evaluator advancing the state of all SLA in a single pass over the status changes of an issue. Each
+ * status is associated to the start, stop and pause roles it plays for every SLA, encoded as bit masks of 64 SLA per
+ * group. The state of the SLA of a group are also bit masks, so a status change is evaluated with a few bitwise
+ * operations whatever the amount of SLA. Immutable and can be shared by several threads.
+ */
+public class SlaEvaluator {
+
+	/**
+	 * The compiled SLA configurations, in the result order.
+	 */
+	private final CompiledSla[] slas;
+
+	/**
+	 * The threshold of each SLA, in the result order. <code>0</code> when none.
+	 */
+	private final long[] thresholds;
+
+	/**
+	 * The compiled business calendar.
+	 */
+	private final BusinessCalendar calendar;
+
+	/**
+	 * Cursor shifting the revised due dates of the paused SLA, reset for each pause. One per thread sharing this
+	 * evaluator.
+	 */
+	private final ThreadLocal<ComputationContext> pauseContext;
+
+	/**
+	 * Amount of 64 SLA groups.
+	 */
+	private final int groups;
+
+	/**
+	 * Row of the role masks of each dense status, <code>-1</code> when the status has no role in any SLA. See
+	 * {@link IdentifierSet#isDense(int)}.
+	 */
+	private final int[] rows;
+
+	/**
+	 * Index of the other statuses having a role. Their row is {@link #otherRow} plus their index.
+	 */
+	private final IntIndex otherRows;
+
+	/**
+	 * Row of the first status of {@link #otherRows}.
+	 */
+	private final int otherRow;
+
+	/**
+	 * SLA started by each status row, by group : <code>starts[row * groups + group]</code>.
+	 */
+	private final long[] starts;
+
+	/**
+	 * SLA stopped by each status row, by group.
+	 */
+	private final long[] stops;
+
+	/**
+	 * SLA paused by each status row, by group.
+	 */
+	private final long[] pauses;
+
+	/**
+	 * Compile the SLA configurations.
+	 *
+	 * @param slas     the SLA configurations.
+	 * @param calendar The compiled business calendar used for the revised due dates.
+	 */
+	public SlaEvaluator(final List<Sla> slas, final BusinessCalendar calendar) {
+		// Compiled for this evaluation only, the identifier sets of the SLA may be resolved again later
+		this.slas = slas.stream().map(CompiledSla::new).toArray(CompiledSla[]::new);
+		this.thresholds = slas.stream().mapToLong(Sla::getThreshold).toArray();
+		this.calendar = calendar;
+		this.pauseContext = ThreadLocal.withInitial(() -> new ComputationContext(calendar));
+		this.groups = (this.slas.length + 63) >>> 6;
+
+		// Collect the statuses having a role, the small ones in a dense array, the other ones in an index
+		final BitSet all = new BitSet();
+		final IntIndex others = new IntIndex();
+		final IntConsumer collector = status -> {
+			if (IdentifierSet.isDense(status)) {
+				all.set(status);
+			} else {
+				others.add(status);
+			}
+		};
+		for (final CompiledSla sla : this.slas) {
+			sla.getStart().forEach(collector);
+			sla.getStop().forEach(collector);
+			sla.getPaused().forEach(collector);
+		}
+		this.rows = new int[all.length()];
+		Arrays.fill(rows, -1);
+		int row = 0;
+		for (int status = all.nextSetBit(0); status >= 0; status = all.nextSetBit(status + 1)) {
+			rows[status] = row++;
+		}
+		this.otherRows = others;
+		this.otherRow = row;
+		row += others.size();
+
+		// Build the role masks
+		this.starts = new long[row * groups];
+		this.stops = new long[row * groups];
+		this.pauses = new long[row * groups];
+		for (int index = 0; index < this.slas.length; index++) {
+			setRole(this.slas[index].getStart(), index, starts);
+			setRole(this.slas[index].getStop(), index, stops);
+			setRole(this.slas[index].getPaused(), index, pauses);
+		}
+	}
+
+	/**
+	 * Set the bit of the given SLA for each given status.
+	 */
+	private void setRole(final IdentifierSet roleStatuses, final int sla, final long[] masks) {
+		roleStatuses.forEach(status -> masks[getRow(status) * groups + (sla >>> 6)] |= 1L << sla);
+	}
+
+	/**
+	 * Return the row of the role masks of the given status, <code>-1</code> when the status has no role in any SLA.
+	 */
+	private int getRow(final int status) {
+		if (status >= 0 && status < rows.length) {
+			return rows[status];
+		}
+		if (IdentifierSet.isDense(status)) {
+			return -1;
+		}
+		final int index = otherRows.indexOf(status);
+		return index < 0 ? -1 : otherRow + index;
+	}
+
+	/**
+	 * Return the computed SLA data of the given issue.
+	 *
+	 * @param issue The issue with its status changes and their elapsed times.
+	 * @param now   The current instant used as stop date of the not yet stopped workflows.
+	 * @return The SLA data, in the SLA order. <code>null</code> item when the SLA cannot be applied for this issue.
+	 */
+	public List<SlaData> evaluate(final IssueStatus issue, final BusinessInstant now) {
+		final State state = newState(issue);
+		advance(state, issue.getChanges());
+		return complete(state, now);
+	}
+
+	/**
+	 * Return a new state of the SLA of the given issue, before its first status change.
+	 *
+	 * @param issue The issue details used to filter the applicable SLA and to initialize the revised due dates.
+	 * @return The initial state.
+	 */
+	public State newState(final IssueDetails issue) {
+		final State state = new State(slas.length, groups);
+		for (int index = 0; index < slas.length; index++) {
+			if (slas[index].isApplicable(issue.getType(), issue.getPriority(), issue.getResolution())) {
+				state.data[index] = new SlaData();
+				state.data[index].setRevisedDueDate(issue.getDueDate());
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Return a state restored from the given SLA data and workflow flags.
+	 *
+	 * @param data    The SLA data, in the SLA order. <code>null</code> item when the SLA cannot be applied for this
+	 *                issue. Not copied.
+	 * @param started The started SLA indexes.
+	 * @param paused  The paused SLA indexes.
+	 * @return The restored state.
+	 */
+	public State newState(final SlaData[] data, final BitSet started, final BitSet paused) {
+		final State state = new State(slas.length, groups);
+		System.arraycopy(data, 0, state.data, 0, slas.length);
+		copyMasks(started.toLongArray(), state.started);
+		copyMasks(paused.toLongArray(), state.paused);
+		return state;
+	}
+
+	/**
+	 * Copy the given masks, ignoring the SLA beyond the configured ones.
+	 */
+	private static void copyMasks(final long[] masks, final long[] target) {
+		System.arraycopy(masks, 0, target, 0, Math.min(masks.length, target.length));
+	}
+
+	/**
+	 * Advance the state of all SLA along the given status changes.
+	 *
+	 * @param state   The state to update.
+	 * @param changes The next status changes with their elapsed times.
+	 */
+	public void advance(final State state, final List<StatusChange> changes) {
+		final int size = changes.size();
+		final int[] statuses = new int[size];
+		final long[] elapsed = new long[size];
+		final long[] created = new long[size];
+		for (int index = 0; index < size; index++) {
+			final StatusChange change = changes.get(index);
+			statuses[index] = change.getStatus();
+			elapsed[index] = change.getElapsedtime();
+			created[index] = change.getChange().getCreated().getTime();
+		}
+		advance(state, statuses, elapsed, created, size);
+	}
+
+	/**
+	 * Advance the state of all SLA along the given status changes, stored as parallel arrays.
+	 *
+	 * @param state    The state to update.
+	 * @param statuses The status of each change.
+	 * @param elapsed  The business time elapsed within the status of each change.
+	 * @param created  The creation timestamp of each change.
+	 * @param size     The amount of changes to read from the arrays.
+	 */
+	public void advance(final State state, final int[] statuses, final long[] elapsed, final long[] created,
+			final int size) {
+		for (int group = 0; group < groups; group++) {
+			final long applicable = state.getApplicable(group);
+			if (applicable != 0) {
+				advance(state, statuses, elapsed, created, size, group, applicable);
+			}
+		}
+	}
+
+	/**
+	 * Return the SLA data of the given state, completed with the revised due date distances and the threshold
+	 * breaches. The state is not updated.
+	 *
+	 * @param state The state to complete.
+	 * @param now   The current instant used as stop date of the not yet stopped workflows.
+	 * @return The SLA data, in the SLA order. <code>null</code> item when the SLA cannot be applied for this issue.
+	 */
+	public List<SlaData> complete(final State state, final BusinessInstant now) {
+		final SlaData[] results = new SlaData[slas.length];
+		for (int index = 0; index < slas.length; index++) {
+			if (state.data[index] != null) {
+				results[index] = copy(state.data[index]);
+				updateRevisedDueDateDistance(results[index], now);
+				updateBreach(results[index], thresholds[index], state.isStarted(index) && !state.isPaused(index), now);
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Advance the SLA of the given group along the given status changes.
+	 */
+	private void advance(final State state, final int[] statuses, final long[] elapsed, final long[] created,
+			final int size, final int group, final long applicable) {
+		final SlaData[] results = state.data;
+		final int offset = group << 6;
+		long started = state.started[group];
+		long paused = state.paused[group];
+		for (int change = 0; change < size; change++) {
+			// Look the SLA triggers
+			final int status = statuses[change];
+			final int row = getRow(status);
+			final int role = row * groups + group;
+			final long stop = row < 0 ? 0 : stops[role] & applicable;
+			final long pause = row < 0 ? 0 : pauses[role] & started & ~stop;
+			final long start = row < 0 ? 0 : starts[role] & applicable & ~stop & ~pause;
+			final long triggered = stop | pause | start;
+
+			// Non managed states continue the pause time or the timer
+			final long continuedPause = paused & ~triggered;
+			final long continued = started & ~paused & ~triggered;
+
+			// SLA are completed
+			for (long mask = stop; mask != 0; mask &= mask - 1) {
+				final SlaData result = results[offset + Long.numberOfTrailingZeros(mask)];
+				if (result.getStop() == null) {
+					// First encounter of stopped workflow
+					result.setStop(new Date(created[change]));
+				}
+			}
+
+			// Paused SLA, update the revised due date only if the pause is before the current revised due date
+			for (long mask = pause | continuedPause; mask != 0; mask &= mask - 1) {
+				updatePause(results[offset + Long.numberOfTrailingZeros(mask)], elapsed[change], created[change]);
+			}
+
+			// Add time of the current status of the not ended SLA
+			for (long mask = start; mask != 0; mask &= mask - 1) {
+				final SlaData result = results[offset + Long.numberOfTrailingZeros(mask)];
+				result.setDuration(result.getDuration() + elapsed[change]);
+				if (result.getStart() == null) {
+					// First encounter of started workflow
+					result.setStart(new Date(created[change]));
+				}
+			}
+			for (long mask = continued; mask != 0; mask &= mask - 1) {
+				final SlaData result = results[offset + Long.numberOfTrailingZeros(mask)];
+				result.setDuration(result.getDuration() + elapsed[change]);
+			}
+
+			started = (started & ~stop) | start;
+			paused = (paused & ~stop & ~start) | pause;
+		}
+		state.started[group] = started;
+		state.paused[group] = paused;
+	}
+
+	/**
+	 * Return a copy of the given SLA data.
+	 */
+	private static SlaData copy(final SlaData data) {
+		final SlaData result = new SlaData();
+		result.setDuration(data.getDuration());
+		result.setStart(data.getStart());
+		result.setStop(data.getStop());
+		result.setRevisedDueDate(data.getRevisedDueDate());
+		result.setRevisedDueDateDistance(data.getRevisedDueDateDistance());
+		return result;
+	}
+
+	/**
+	 * Compute the distance between the revised due date and the stopped workflow date.
+	 */
+	private void updateRevisedDueDateDistance(final SlaData result, final BusinessInstant now) {
+		if (result.getRevisedDueDate() != null) {
+			// When the workflow is not yet stopped, continue the timer until now, already resolved
+			final long stop = result.getStop() == null ? now.getBusinessTime()
+					: calendar.toBusinessTime(result.getStop().getTime());
+			final long revisedDueDate = calendar.toBusinessTime(result.getRevisedDueDate().getTime());
+
+			// Business time between the revised due date and the stopped workflow date, whatever their order
+			result.setRevisedDueDateDistance(-Math.abs(stop - revisedDueDate));
+		}
+	}
+
+	/**
+	 * Compute the threshold breach and the business time remaining before it. The breach instant is projected from now
+	 * only for the running SLA not yet breached, since the timer of the other ones does not advance.
+	 */
+	private void updateBreach(final SlaData result, final long threshold, final boolean running,
+			final BusinessInstant now) {
+		if (threshold > 0) {
+			final long remaining = threshold - result.getDuration();
+			result.setRemaining(remaining);
+			result.setBreached(remaining < 0);
+			if (running && remaining >= 0) {
+				result.setBreachDate(new Date(calendar.toInstant(now.getBusinessTime() + remaining)));
+			}
+		}
+	}
+
+	/**
+	 * Update the revised due date of a paused SLA, only when the pause is before the current revised due date.
+	 */
+	private void updatePause(final SlaData result, final long elapsed, final long created) {
+		if (result.getRevisedDueDate() != null && result.getRevisedDueDate().getTime() > created) {
+			// Shift the revised due date by the paused business time
+			final ComputationContext computationContext = pauseContext.get();
+			computationContext.reset(result.getRevisedDueDate().getTime());
+			result.setRevisedDueDate(new Date(computationContext.moveForwardBy(elapsed)));
+		}
+	}
+
+	/**
+	 * State of all SLA of an issue after some of its status changes. Can be saved and resumed later with the next
+	 * status changes.
+	 */
+	public static class State {
+
+		/**
+		 * The SLA data, in the SLA order. <code>null</code> item when the SLA cannot be applied for this issue.
+		 */
+		private final SlaData[] data;
+
+		/**
+		 * Started SLA, by group.
+		 */
+		private final long[] started;
+
+		/**
+		 * Paused SLA, by group.
+		 */
+		private final long[] paused;
+
+		private State(final int size, final int groups) {
+			this.data = new SlaData[size];
+			this.started = new long[groups];
+			this.paused = new long[groups];
+		}
+
+		/**
+		 * Return the applicable SLA of the given group.
+		 */
+		private long getApplicable(final int group) {
+			long applicable = 0;
+			final int offset = group << 6;
+			for (int index = offset; index < Math.min(data.length, offset + 64); index++) {
+				if (data[index] != null) {
+					applicable |= 1L << index;
+				}
+			}
+			return applicable;
+		}
+
+		/**
+		 * Return the SLA data. <code>null</code> item when the SLA cannot be applied for this issue.
+		 *
+		 * @param index The SLA index.
+		 * @return The SLA data.
+		 */
+		public SlaData getData(final int index) {
+			return data[index];
+		}
+
+		/**
+		 * Indicate the SLA is started and not yet stopped.
+		 *
+		 * @param index The SLA index.
+		 * @return <code>true</code> when the SLA is started.
+		 */
+		public boolean isStarted(final int index) {
+			return (started[index >>> 6] & 1L << index) != 0;
+		}
+
+		/**
+		 * Indicate the SLA is paused.
+		 *
+		 * @param index The SLA index.
+		 * @return <code>true</code> when the SLA is paused.
+		 */
+		public boolean isPaused(final int index) {
+			return (paused[index >>> 6] & 1L << index) != 0;
+		}
+
+		/**
+		 * Return a deep copy of this state.
+		 *
+		 * @return A new state.
+		 */
+		public State copy() {
+			final State copy = new State(data.length, started.length);
+			for (int index = 0; index < data.length; index++) {
+				copy.data[index] = data[index] == null ? null : SlaEvaluator.copy(data[index]);
+			}
+			System.arraycopy(started, 0, copy.started, 0, started.length);
+			System.arraycopy(paused, 0, copy.paused, 0, paused.length);
+			return copy;
+		}
+	}
+}
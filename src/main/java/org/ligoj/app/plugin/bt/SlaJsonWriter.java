@@ -0,0 +1,60 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write the computed issues as a {@link SlaComputations} JSON object.
+ */
+public class SlaJsonWriter implements SlaWriter {
+
+	private final JsonGenerator generator;
+
+	/**
+	 * Start the JSON object with the SLA configurations.
+	 *
+	 * @param mapper            The JSON mapper of the application.
+	 * @param output            The target output.
+	 * @param slaConfigurations The SLA configurations of the computed issues.
+	 * @throws IOException When the output cannot be written.
+	 */
+	public SlaJsonWriter(final ObjectMapper mapper, final OutputStream output,
+			final List<SlaConfiguration> slaConfigurations) throws IOException {
+		this.generator = mapper.createGenerator(output);
+
+		// The document is terminated only by a successful computation
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+		generator.writeStartObject();
+		generator.writeFieldName("slaConfigurations");
+		generator.writeObject(slaConfigurations);
+		generator.writeArrayFieldStart("issues");
+	}
+
+	@Override
+	public void accept(final IssueSla issue) {
+		try {
+			generator.writeObject(issue);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		generator.writeEndArray();
+		generator.writeEndObject();
+	}
+
+	@Override
+	public void close() throws IOException {
+		generator.close();
+	}
+}
@@ -3,21 +3,36 @@
  */
 package org.ligoj.app.plugin.bt;
 
+import java.time.Clock;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.ligoj.app.plugin.bt.model.BusinessHours;
 import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.IssueCheckpoint;
+import org.ligoj.app.plugin.bt.model.IssueDetails;
 import org.ligoj.app.plugin.bt.model.Sla;
-import org.ligoj.bootstrap.core.DateUtils;
+import org.ligoj.app.plugin.bt.model.SlaCheckpoint;
 import org.ligoj.bootstrap.core.DescribedBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +47,25 @@ public class SlaProcessor {
 	@Autowired
 	protected IdentifierHelper identifierHelper;
 
+	/**
+	 * Shared compiled calendars, so the repeated computations on the same holidays and business hours are not indexed
+	 * again.
+	 */
+	@Autowired
+	protected BusinessCalendarCache calendarCache = new BusinessCalendarCache();
+
+	/**
+	 * Amount of threads evaluating the SLA of the issues. When <code>1</code>, the evaluation is sequential.
+	 */
+	@Value("${ligoj.bt.sla.parallelism:1}")
+	protected int parallelism = 1;
+
+	/**
+	 * The clock giving the current instant, read once per computation run.
+	 */
+	@Autowired(required = false)
+	protected Clock clock = Clock.systemDefaultZone();
+
 	/**
 	 * Return SLA computations.
 	 *
@@ -43,26 +77,516 @@ public class SlaProcessor {
 	 */
 	public SlaComputations process(final List<BusinessHours> businessHours, final List<ChangeItem> changes,
 			final List<Date> holidays, final List<Sla> slas) {
+		return process(businessHours, changes, holidays, slas, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Return SLA computations.
+	 *
+	 * @param businessHours The business hours.
+	 * @param changes       the changes of all issues. Ordered by date.
+	 * @param holidays      the non-business days.
+	 * @param slas          the SLA configurations.
+	 * @param zone          the time zone of the business days and hours. See
+	 *                      {@link org.ligoj.app.plugin.bt.model.Calendar#toZoneId()}.
+	 * @return the SLA configuration
+	 */
+	public SlaComputations process(final List<BusinessHours> businessHours, final List<ChangeItem> changes,
+			final List<Date> holidays, final List<Sla> slas, final ZoneId zone) {
+
+		// Index the calendar once for all issues and SLAs, and reuse it for the next computations
+		return process(calendarCache.getCalendar(holidays, businessHours, zone), changes, slas);
+	}
+
+	/**
+	 * Return SLA computations from a compiled calendar. See {@link BusinessCalendarCache#getCalendar}.
+	 *
+	 * @param calendar The compiled business calendar.
+	 * @param changes  the changes of all issues. Ordered by date.
+	 * @param slas     the SLA configurations.
+	 * @return the SLA configuration
+	 */
+	public SlaComputations process(final BusinessCalendar calendar, final List<ChangeItem> changes,
+			final List<Sla> slas) {
 
 		// Compute elapsed times
-		final Map<Integer, IssueStatus> groupChanges = computedElapsedTimes(changes, holidays, businessHours);
+		final BusinessInstant now = newNow(calendar);
+		final List<IssueStatus> groupChanges = computedElapsedTimes(changes, calendar, now);
 
 		// Compute SLAs
-		return computeSlas(groupChanges, slas, holidays, businessHours);
+		return computeSlas(groupChanges, slas, calendar, now);
+	}
+
+	/**
+	 * Return SLA computations where the elapsed times of each issue are computed independently from the other issues,
+	 * as differences of cumulated business time. The changes do not need to be ordered, and the issues are processed
+	 * in parallel when configured. Equivalent to {@link #process(BusinessCalendar, List, List)} for changes ordered by
+	 * date and created before now.
+	 *
+	 * @param calendar The compiled business calendar.
+	 * @param changes  the changes of all issues, in any order. The changes of an issue created at the same time are
+	 *                 kept in their original order.
+	 * @param slas     the SLA configurations.
+	 * @return the SLA configuration. The issues are in the order of their first change in the given list.
+	 */
+	public SlaComputations processIssues(final BusinessCalendar calendar, final List<ChangeItem> changes,
+			final List<Sla> slas) {
+		// Group the changes by issue, changes without issue identifier are grouped together
+		final IntIndex issues = new IntIndex();
+		final List<List<ChangeItem>> groupChanges = new ArrayList<>();
+		for (final ChangeItem change : changes) {
+			final int index = issues.add(ObjectUtils.getIfNull(change.getId(), Integer.MIN_VALUE));
+			if (index == groupChanges.size()) {
+				groupChanges.add(new ArrayList<>());
+			}
+			groupChanges.get(index).add(change);
+		}
+
+		// Compute elapsed times and SLAs of each issue
+		final SlaComputations result = new SlaComputations();
+		result.setSlaConfigurations(toSlaConfiguration(slas));
+		final SlaEvaluator evaluator = new SlaEvaluator(slas, calendar);
+		final BusinessInstant now = newNow(calendar);
+		result.setIssues(computeIssues(groupChanges,
+				issue -> getIssueSlas(computeElapsedTimes(issue, calendar, now.getBusinessTime()), evaluator, now)));
+		return result;
+	}
+
+	/**
+	 * Return the current instant of a computation run, shared by all its issues.
+	 */
+	private BusinessInstant newNow(final BusinessCalendar calendar) {
+		return new BusinessInstant(calendar, clock.millis());
+	}
+
+	/**
+	 * Return the issue with the elapsed times of its changes, computed from its changes only.
+	 */
+	private IssueStatus computeElapsedTimes(final List<ChangeItem> changes, final BusinessCalendar calendar,
+			final long now) {
+		final List<ChangeItem> sorted = new ArrayList<>(changes);
+		sorted.sort(Comparator.comparing(ChangeItem::getCreated));
+		final IssueStatus issue = newIssueStatus(sorted.getFirst());
+		long cumulatedElapsed = Long.MIN_VALUE;
+		for (final ChangeItem change : sorted) {
+			cumulatedElapsed = Math.max(cumulatedElapsed, calendar.toBusinessTime(change.getCreated().getTime()));
+			updatePreviousStatus(cumulatedElapsed, change, issue);
+			addStatusChange(cumulatedElapsed, change, issue);
+		}
+
+		// Update elapsed time for the tail
+		updatePreviousStatus(Math.max(now, cumulatedElapsed), null, issue);
+		return issue;
+	}
+
+	/**
+	 * Return SLA computations from a columnar changelog. The changes are not materialized as objects, only the
+	 * statuses of one issue at a time are.
+	 *
+	 * @param calendar The compiled business calendar.
+	 * @param changes  the changes of all issues. Ordered by date.
+	 * @param slas     the SLA configurations.
+	 * @return the SLA configuration
+	 */
+	public SlaComputations process(final BusinessCalendar calendar, final ChangeLog changes, final List<Sla> slas) {
+		final SlaComputations result = new SlaComputations();
+		result.setSlaConfigurations(toSlaConfiguration(slas));
+		final SlaEvaluator evaluator = new SlaEvaluator(slas, calendar);
+
+		// Compute the elapsed time cursor at each change
+		final int size = changes.size();
+		final long[] cumulated = new long[size];
+		long cursor = Long.MIN_VALUE;
+		for (int change = 0; change < size; change++) {
+			cursor = Math.max(cursor, calendar.toBusinessTime(changes.getCreated(change)));
+			cumulated[change] = cursor;
+		}
+		final BusinessInstant now = newNow(calendar);
+		final long tail = Math.max(cursor, now.getBusinessTime());
+
+		// Group the changes by issue, keeping their order
+		final int issues = changes.getIssueCount();
+		final int[] offsets = new int[issues + 1];
+		for (int change = 0; change < size; change++) {
+			offsets[changes.getIssue(change) + 1]++;
+		}
+		for (int issue = 0; issue < issues; issue++) {
+			offsets[issue + 1] += offsets[issue];
+		}
+		final int[] rows = new int[size];
+		final int[] next = Arrays.copyOf(offsets, issues);
+		for (int change = 0; change < size; change++) {
+			rows[next[changes.getIssue(change)]++] = change;
+		}
+
+		// Compute SLAs of the issues having at least one change
+		final IntFunction<IssueSla> mapper = issue -> getIssueSlas(changes, issue, rows, offsets, cumulated, tail,
+				evaluator, now);
+		if (parallelism <= 1 || issues < 2) {
+			result.setIssues(IntStream.range(0, issues).filter(i -> offsets[i + 1] > offsets[i]).mapToObj(mapper)
+					.toList());
+		} else {
+			try (var pool = new ForkJoinPool(parallelism)) {
+				result.setIssues(pool.submit(() -> IntStream.range(0, issues).parallel()
+						.filter(i -> offsets[i + 1] > offsets[i]).mapToObj(mapper).toList()).join());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the issue of a columnar changelog with all computed SLA.
+	 */
+	private IssueSla getIssueSlas(final ChangeLog changes, final int issue, final int[] rows, final int[] offsets,
+			final long[] cumulated, final long tail, final SlaEvaluator evaluator, final BusinessInstant now) {
+		final IssueDetails details = changes.toIssueDetails(issue);
+		final int first = offsets[issue];
+		final int size = offsets[issue + 1] - first;
+		final int[] statuses = new int[size];
+		final long[] elapsed = new long[size];
+		final long[] created = new long[size];
+		for (int index = 0; index < size; index++) {
+			final int change = rows[first + index];
+			statuses[index] = changes.getToStatus(change);
+			created[index] = changes.getCreated(change);
+			if (index > 0) {
+				// Update the elapsed time of previous status and validate the transition
+				elapsed[index - 1] = cumulated[change] - cumulated[rows[first + index - 1]];
+				final int fromStatus = changes.getFromStatus(change);
+				if (fromStatus != ChangeLog.NO_VALUE && fromStatus != statuses[index - 1]) {
+					log.info("Broken state of issue {} ({}) has been updated: {} -> {}", details.getPkey(),
+							details.getId(), statuses[index - 1], fromStatus);
+					statuses[index - 1] = fromStatus;
+				}
+			}
+		}
+		elapsed[size - 1] = tail - cumulated[rows[first + size - 1]];
+
+		final StatusCounter statusCounter = new StatusCounter();
+		for (final int status : statuses) {
+			statusCounter.increment(status);
+		}
+		final SlaEvaluator.State state = evaluator.newState(details);
+		evaluator.advance(state, statuses, elapsed, created, size);
+		return toIssueSla(details, evaluator.complete(state, now), statusCounter);
+	}
+
+	/**
+	 * Compute SLA for each issue from a stream of changes, without holding all the changes of all issues. The changes
+	 * of an issue must be consecutive and ordered by date, and the SLA of an issue are sent to the sink as soon as the
+	 * changes of the next issue start. The SLA configurations are available from {@link #toSlaConfiguration(List)}.
+	 *
+	 * @param calendar The compiled business calendar.
+	 * @param changes  the changes of all issues. Grouped by issue and ordered by date within an issue.
+	 * @param slas     the SLA configurations.
+	 * @param sink     the consumer of the computed issues, in the order of the changes.
+	 */
+	public void process(final BusinessCalendar calendar, final Iterator<ChangeItem> changes, final List<Sla> slas,
+			final Consumer<IssueSla> sink) {
+		final SlaEvaluator evaluator = new SlaEvaluator(slas, calendar);
+		final BusinessInstant now = newNow(calendar);
+		IssueStatus issue = null;
+		long cumulatedElapsed = 0;
+		while (changes.hasNext()) {
+			final ChangeItem change = changes.next();
+			if (issue == null || !Objects.equals(issue.getId(), change.getId())) {
+				// Previous issue is complete
+				completeIssue(issue, now, cumulatedElapsed, evaluator, sink);
+				issue = newIssueStatus(change);
+				cumulatedElapsed = Long.MIN_VALUE;
+			}
+
+			// The elapsed time of an issue is independent of the other issues
+			cumulatedElapsed = Math.max(cumulatedElapsed, calendar.toBusinessTime(change.getCreated().getTime()));
+			updatePreviousStatus(cumulatedElapsed, change, issue);
+			addStatusChange(cumulatedElapsed, change, issue);
+		}
+		completeIssue(issue, now, cumulatedElapsed, evaluator, sink);
+	}
+
+	/**
+	 * Compute SLA for each issue from a stream of changes. See
+	 * {@link #process(BusinessCalendar, Iterator, List, Consumer)}.
+	 *
+	 * @param calendar The compiled business calendar.
+	 * @param changes  the changes of all issues. Grouped by issue and ordered by date within an issue.
+	 * @param slas     the SLA configurations.
+	 * @param sink     the consumer of the computed issues, in the order of the changes.
+	 */
+	public void process(final BusinessCalendar calendar, final Stream<ChangeItem> changes, final List<Sla> slas,
+			final Consumer<IssueSla> sink) {
+		process(calendar, changes.iterator(), slas, sink);
+	}
+
+	/**
+	 * Compute SLA for each issue from the given checkpoints and the changes created after them. Only the new changes
+	 * are consumed, the checkpoints are updated so that the next computation resumes from these changes. The SLA of
+	 * the checkpointed issues without new change are also sent to the sink. The issue details are refreshed from the
+	 * changes. When the type, the priority, the resolution or the due date of an issue differ from its checkpoint, the
+	 * applicability of the SLA may differ too : the checkpoint is thrown away and the issue is computed again from all
+	 * its given changes.
+	 *
+	 * @param calendar    The compiled business calendar. Must be the one used to build the checkpoints.
+	 * @param checkpoints the checkpoints of the issues, by issue identifier. Updated with the new changes, and
+	 *                    completed with the new issues. The configuration of the new checkpoints is not set.
+	 * @param changes     the changes of all issues. Grouped by issue and ordered by date within an issue. Changes
+	 *                    created until the checkpoint of their issue are ignored, unless this checkpoint is thrown
+	 *                    away. Each change holds the current details of its issue.
+	 * @param slas        the SLA configurations. Must be the ones used to build the checkpoints.
+	 * @param sink        the consumer of the computed issues, in the order of the changes, then the order of the
+	 *                    untouched checkpoints.
+	 */
+	public void process(final BusinessCalendar calendar, final Map<Integer, IssueCheckpoint> checkpoints,
+			final Iterator<ChangeItem> changes, final List<Sla> slas, final Consumer<IssueSla> sink) {
+		final SlaEvaluator evaluator = new SlaEvaluator(slas, calendar);
+		final BusinessInstant now = newNow(calendar);
+		final Map<Integer, IssueCheckpoint> untouched = new LinkedHashMap<>(checkpoints);
+		IssueStatus issue = null;
+		IssueCheckpoint checkpoint = null;
+		long cumulatedElapsed = 0;
+		while (changes.hasNext()) {
+			final ChangeItem change = changes.next();
+			if (issue == null || !Objects.equals(issue.getId(), change.getId())) {
+				// Previous issue is complete
+				completeIssue(issue, checkpoint, now, cumulatedElapsed, evaluator, slas, sink);
+				checkpoint = untouched.remove(change.getId());
+				if (checkpoint == null) {
+					// New issue
+					checkpoint = new IssueCheckpoint();
+					checkpoint.setIssue(change.getId());
+					checkpoints.put(change.getId(), checkpoint);
+					issue = newIssueStatus(change);
+					cumulatedElapsed = Long.MIN_VALUE;
+				} else if (isSameFilters(checkpoint, change)) {
+					// Resume the last status of the issue, with its current details
+					issue = newIssueStatus(change);
+					issue.setCreated(checkpoint.getCreated());
+					addLastStatus(checkpoint, issue, calendar);
+					cumulatedElapsed = issue.getChanges().getFirst().getSnapshotTime();
+				} else {
+					// The applicable SLA may have changed, compute again the issue from its first change
+					checkpoint.setChanged(null);
+					checkpoint.setStatusCounter(new HashMap<>());
+					issue = newIssueStatus(change);
+					cumulatedElapsed = Long.MIN_VALUE;
+				}
+			}
+			if (checkpoint.getChanged() != null && !change.getCreated().after(checkpoint.getChanged())) {
+				// Already processed change
+				continue;
+			}
+
+			cumulatedElapsed = Math.max(cumulatedElapsed, calendar.toBusinessTime(change.getCreated().getTime()));
+			updatePreviousStatus(cumulatedElapsed, change, issue);
+			addStatusChange(cumulatedElapsed, change, issue);
+		}
+		completeIssue(issue, checkpoint, now, cumulatedElapsed, evaluator, slas, sink);
+
+		// Issues without new change
+		for (final IssueCheckpoint value : untouched.values()) {
+			final IssueStatus resumed = newIssueStatus(value);
+			addLastStatus(value, resumed, calendar);
+			completeIssue(resumed, value, now, resumed.getChanges().getFirst().getSnapshotTime(), evaluator, slas,
+					sink);
+		}
+	}
+
+	/**
+	 * Save the SLA state of the ended statuses of the given issue into its checkpoint, then send the computed SLA
+	 * including the elapsed time of its tail until now to the sink.
+	 */
+	private void completeIssue(final IssueStatus issue, final IssueCheckpoint checkpoint, final BusinessInstant now,
+			final long cumulatedElapsed, final SlaEvaluator evaluator, final List<Sla> slas,
+			final Consumer<IssueSla> sink) {
+		if (issue == null) {
+			return;
+		}
+		final List<StatusChange> statuses = issue.getChanges();
+		final SlaEvaluator.State state = checkpoint.getChanged() == null ? evaluator.newState(issue)
+				: toState(checkpoint, evaluator, slas);
+
+		// Only the ended statuses are saved, the last one may continue with the next changes
+		final StatusChange last = statuses.getLast();
+		evaluator.advance(state, statuses.subList(0, statuses.size() - 1));
+		final StatusCounter counter = new StatusCounter(checkpoint.getStatusCounter());
+		statuses.subList(0, statuses.size() - 1).forEach(s -> counter.increment(s.getStatus()));
+		updateCheckpoint(checkpoint, issue, last, counter, state, slas);
+
+		// Add the elapsed time of the tail to a copy
+		updatePreviousStatus(Math.max(now.getBusinessTime(), cumulatedElapsed), null, issue);
+		final SlaEvaluator.State tail = state.copy();
+		evaluator.advance(tail, List.of(last));
+		final StatusCounter statusCounter = new StatusCounter(counter);
+		statusCounter.increment(last.getStatus());
+		sink.accept(toIssueSla(issue, evaluator.complete(tail, now), statusCounter));
+	}
+
+	/**
+	 * Return the SLA state saved in the given checkpoint.
+	 */
+	private SlaEvaluator.State toState(final IssueCheckpoint checkpoint, final SlaEvaluator evaluator,
+			final List<Sla> slas) {
+		final SlaData[] data = new SlaData[slas.size()];
+		final BitSet started = new BitSet();
+		final BitSet paused = new BitSet();
+		for (final SlaCheckpoint slaCheckpoint : checkpoint.getSlas()) {
+			final int index = indexOf(slas, slaCheckpoint.getSla());
+			if (index >= 0) {
+				data[index] = new SlaData();
+				data[index].setDuration(slaCheckpoint.getDuration());
+				data[index].setStart(slaCheckpoint.getStart());
+				data[index].setStop(slaCheckpoint.getStop());
+				data[index].setRevisedDueDate(slaCheckpoint.getRevisedDueDate());
+				started.set(index, slaCheckpoint.isStarted());
+				paused.set(index, slaCheckpoint.isPaused());
+			}
+		}
+		return evaluator.newState(data, started, paused);
+	}
+
+	/**
+	 * Return the index of the given SLA, by identifier when persisted.
+	 */
+	private int indexOf(final List<Sla> slas, final Sla sla) {
+		for (int index = 0; index < slas.size(); index++) {
+			if (slas.get(index) == sla || sla.getId() != null && sla.getId().equals(slas.get(index).getId())) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Save the given SLA state and the last status into the checkpoint.
+	 */
+	private void updateCheckpoint(final IssueCheckpoint checkpoint, final IssueStatus issue, final StatusChange last,
+			final Map<Integer, Integer> counter, final SlaEvaluator.State state, final List<Sla> slas) {
+		checkpoint.setPkey(issue.getPkey());
+		checkpoint.setCreated(issue.getCreated());
+		checkpoint.setPriority(issue.getPriority());
+		checkpoint.setStatus(issue.getStatus());
+		checkpoint.setType(issue.getType());
+		checkpoint.setResolution(issue.getResolution());
+		checkpoint.setReporter(issue.getReporter());
+		checkpoint.setAssignee(issue.getAssignee());
+		checkpoint.setTimeSpent(issue.getTimeSpent());
+		checkpoint.setTimeEstimate(issue.getTimeEstimate());
+		checkpoint.setTimeEstimateInit(issue.getTimeEstimateInit());
+		checkpoint.setDueDate(issue.getDueDate());
+		checkpoint.setLastStatus(last.getStatus());
+		checkpoint.setChanged(last.getChange().getCreated());
+		checkpoint.setStatusCounter(counter);
+
+		// Update the SLA states in place to keep their identity
+		final Map<Sla, SlaCheckpoint> previous = new HashMap<>();
+		checkpoint.getSlas().forEach(s -> previous.put(s.getSla(), s));
+		checkpoint.getSlas().clear();
+		for (int index = 0; index < slas.size(); index++) {
+			final SlaData data = state.getData(index);
+			if (data != null) {
+				final SlaCheckpoint slaCheckpoint = ObjectUtils.getIfNull(previous.get(slas.get(index)),
+						SlaCheckpoint::new);
+				slaCheckpoint.setIssue(checkpoint);
+				slaCheckpoint.setSla(slas.get(index));
+				slaCheckpoint.setStarted(state.isStarted(index));
+				slaCheckpoint.setPaused(state.isPaused(index));
+				slaCheckpoint.setDuration(data.getDuration());
+				slaCheckpoint.setStart(data.getStart());
+				slaCheckpoint.setStop(data.getStop());
+				slaCheckpoint.setRevisedDueDate(data.getRevisedDueDate());
+				checkpoint.getSlas().add(slaCheckpoint);
+			}
+		}
+	}
+
+	/**
+	 * Indicate the details of the given change filtering the SLA and their due dates are the ones of the checkpoint.
+	 */
+	private boolean isSameFilters(final IssueCheckpoint checkpoint, final ChangeItem change) {
+		return Objects.equals(checkpoint.getType(), change.getType())
+				&& Objects.equals(checkpoint.getPriority(), change.getPriority())
+				&& Objects.equals(checkpoint.getResolution(), change.getResolution())
+				&& Objects.equals(toTime(checkpoint.getDueDate()), toTime(change.getDueDate()));
+	}
+
+	/**
+	 * Return the time of the given date, whatever its implementation.
+	 */
+	private static Long toTime(final Date date) {
+		return date == null ? null : date.getTime();
+	}
+
+	/**
+	 * Return an issue with the details saved in the given checkpoint.
+	 */
+	private IssueStatus newIssueStatus(final IssueCheckpoint checkpoint) {
+		final ChangeItem change = new ChangeItem();
+		change.setId(checkpoint.getIssue());
+		change.setPkey(checkpoint.getPkey());
+		change.setCreated(checkpoint.getCreated());
+		change.setPriority(checkpoint.getPriority());
+		change.setStatus(checkpoint.getStatus());
+		change.setType(checkpoint.getType());
+		change.setResolution(checkpoint.getResolution());
+		change.setReporter(checkpoint.getReporter());
+		change.setAssignee(checkpoint.getAssignee());
+		change.setTimeSpent(checkpoint.getTimeSpent());
+		change.setTimeEstimate(checkpoint.getTimeEstimate());
+		change.setTimeEstimateInit(checkpoint.getTimeEstimateInit());
+		change.setDueDate(checkpoint.getDueDate());
+		return newIssueStatus(change);
+	}
+
+	/**
+	 * Add the last processed status of the given checkpoint to the issue, its only status.
+	 */
+	private void addLastStatus(final IssueCheckpoint checkpoint, final IssueStatus issue,
+			final BusinessCalendar calendar) {
+		// The last change, only its creation date is used
+		final ChangeItem last = new ChangeItem();
+		last.setId(checkpoint.getIssue());
+		last.setCreated(checkpoint.getChanged());
+		last.setToStatus(checkpoint.getLastStatus());
+		addStatusChange(calendar.toBusinessTime(checkpoint.getChanged().getTime()), last, issue);
+	}
+
+	/**
+	 * Update the elapsed time of the tail of the given issue until now and send the computed SLA to the sink.
+	 */
+	private void completeIssue(final IssueStatus issue, final BusinessInstant now, final long cumulatedElapsed,
+			final SlaEvaluator evaluator, final Consumer<IssueSla> sink) {
+		if (issue != null) {
+			updatePreviousStatus(Math.max(now.getBusinessTime(), cumulatedElapsed), null, issue);
+			sink.accept(getIssueSlas(issue, evaluator, now));
+		}
 	}
 
 	/**
 	 * Compute SLA for each issue, based on the given status changes.
 	 */
-	private SlaComputations computeSlas(final Map<Integer, IssueStatus> groupChanges, final List<Sla> slas,
-			final List<Date> holidays, final List<BusinessHours> nonBusinessHours) {
+	private SlaComputations computeSlas(final List<IssueStatus> groupChanges, final List<Sla> slas,
+			final BusinessCalendar calendar, final BusinessInstant now) {
 		final SlaComputations result = new SlaComputations();
 		result.setSlaConfigurations(toSlaConfiguration(slas));
-		result.setIssues(groupChanges.values().stream()
-				.map(issue -> getIssueSlas(issue, slas, holidays, nonBusinessHours)).toList());
+		final SlaEvaluator evaluator = new SlaEvaluator(slas, calendar);
+		result.setIssues(computeIssues(groupChanges, issue -> getIssueSlas(issue, evaluator, now)));
 		return result;
 	}
 
+	/**
+	 * Compute the SLA of each issue, in parallel when configured.
+	 */
+	private <T> List<IssueSla> computeIssues(final List<T> issues, final Function<T, IssueSla> mapper) {
+		if (parallelism <= 1 || issues.size() < 2) {
+			return issues.stream().map(mapper).toList();
+		}
+
+		// Issues are independent, the encounter order of the ordered stream is kept by the collector
+		try (var pool = new ForkJoinPool(parallelism)) {
+			return pool.submit(() -> issues.parallelStream().map(mapper).toList()).join();
+		}
+	}
+
 	/**
 	 * Prepare SLA configuration to optimize the computations.
 	 *
@@ -92,8 +616,16 @@ public class SlaProcessor {
 	/**
 	 * Return the issue with all computed SLA.
 	 */
-	private IssueSla getIssueSlas(final IssueStatus issue, final List<Sla> slas, final List<Date> holidays,
-			final List<BusinessHours> nonBusinessHours) {
+	private IssueSla getIssueSlas(final IssueStatus issue, final SlaEvaluator evaluator, final BusinessInstant now) {
+		// Add elapsed times for all relevant statuses for each SLA, and the status counter
+		return toIssueSla(issue, evaluator.evaluate(issue, now), getStatusCounter(issue));
+	}
+
+	/**
+	 * Return the issue with the given computed SLA and status counter.
+	 */
+	private IssueSla toIssueSla(final IssueDetails issue, final List<SlaData> data,
+			final Map<Integer, Integer> statusCounter) {
 		final IssueSla issueSla = new IssueSla();
 		issueSla.setId(issue.getId());
 		issueSla.setPriority(issue.getPriority());
@@ -111,11 +643,8 @@ public class SlaProcessor {
 		issueSla.setCreated(issue.getCreated());
 		issueSla.setDueDate(issue.getDueDate());
 
-		// Add elapsed times for all relevant statuses for each SLA
-		issueSla.setData(getSlaDurations(issue, slas, holidays, nonBusinessHours));
-
-		// Add status counter
-		issueSla.setStatusCounter(getStatusCounter(issue));
+		issueSla.setData(data);
+		issueSla.setStatusCounter(statusCounter);
 
 		return issueSla;
 	}
@@ -123,166 +652,34 @@ public class SlaProcessor {
 	/**
 	 * For each change, increment the status counter.
 	 */
-	private Map<Integer, Integer> getStatusCounter(final IssueStatus issue) {
-		final Map<Integer, Integer> statusCounter = new HashMap<>();
+	private StatusCounter getStatusCounter(final IssueStatus issue) {
+		final StatusCounter statusCounter = new StatusCounter();
 		for (final StatusChange change : issue.getChanges()) {
 			// Increment the counter for this status
-			final int status = change.getStatus();
-			statusCounter.put(status, ObjectUtils.getIfNull(statusCounter.get(status), 0) + 1);
+			statusCounter.increment(change.getStatus());
 		}
 		return statusCounter;
 	}
 
-	/**
-	 * For each SLA, get the elapsed time for given issue.
-	 */
-	private List<SlaData> getSlaDurations(final IssueStatus issue, final List<Sla> slas, final List<Date> holidays,
-			final List<BusinessHours> nonBusinessHours) {
-		final List<SlaData> data = new ArrayList<>();
-		final Date now = DateUtils.newCalendar().getTime();
-		for (final Sla sla : slas) {
-			if (checkAppliance(issue, sla)) {
-				data.add(getSlaDuration(issue, sla, holidays, nonBusinessHours, now));
-			} else {
-				// Not applicable -> null
-				data.add(null);
-			}
-		}
-		return data;
-	}
-
-	/**
-	 * Check the SLA can be applied for this issue.
-	 *
-	 * @param issue the current issue to check.
-	 * @param sla   the SLA to compute.
-	 * @return <code>true</code> if SLA can be applied to this issue.
-	 */
-	private boolean checkAppliance(final IssueStatus issue, final Sla sla) {
-		return checkAppliance(issue.getType(), sla.getTypesAsSet())
-				&& checkAppliance(issue.getPriority(), sla.getPrioritiesAsSet())
-				&& checkAppliance(issue.getResolution(), sla.getResolutionsAsSet());
-	}
-
-	/**
-	 * Check the value against the filtered ones.
-	 *
-	 * @param identifier          the current issue to check.
-	 * @param filteredIdentifiers the filtered identifiers.
-	 * @return <code>true</code> there is no filtered identifiers or when the given identifier is in the filtered
-	 * identifiers.
-	 */
-	private boolean checkAppliance(final Integer identifier, final Set<Integer> filteredIdentifiers) {
-		return filteredIdentifiers.isEmpty() || filteredIdentifiers.contains(identifier);
-	}
-
-	/**
-	 * Return the elapsed time for the given SLA and issue or <code>null</code> if SLA cannot be applied for this issue.
-	 */
-	private SlaData getSlaDuration(final IssueStatus issue, final Sla sla, final List<Date> holidays,
-			final List<BusinessHours> nonBusinessHours, final Date now) {
-		boolean started = false;
-		boolean paused = false;
-		final ComputationContext computationContext = new ComputationContext(holidays, nonBusinessHours);
-		final SlaData result = new SlaData();
-		result.setRevisedDueDate(issue.getDueDate());
-
-		for (final StatusChange change : issue.getChanges()) {
-			// Look the SLA triggers
-			if (sla.getStopAsSet().contains(change.getStatus())) {
-				// SLA is completed
-				started = false;
-				paused = false;
-				if (result.getStop() == null) {
-					// First encounter of stopped workflow
-					result.setStop(change.getChange().getCreated());
-				}
-			} else if (started && sla.getPausedAsSet().contains(change.getStatus())) {
-				// Paused SLA, update the revised due date only if the pause is before the current revised due date
-				paused = true;
-				updatePause(result, change, computationContext);
-			} else if (sla.getStartAsSet().contains(change.getStatus())) {
-				// Add time of the current status of the not ended SLA
-				started = true;
-				paused = false;
-				result.setDuration(result.getDuration() + change.getElapsedtime());
-				if (result.getStart() == null) {
-					// First encounter of started workflow
-					result.setStart(change.getChange().getCreated());
-				}
-			} else if (paused) {
-				// Non managed state, continue the pause time
-				updatePause(result, change, computationContext);
-			} else if (started) {
-				// Non managed state, continue the timer
-				result.setDuration(result.getDuration() + change.getElapsedtime());
-			}
-		}
-
-		if (result.getRevisedDueDate() != null) {
-			// Compute the distance between the revised due date and the stopped workflow date
-			Date stop = result.getStop();
-			if (stop == null) {
-				// Workflow is not yet stopped, continue the timer
-				stop = now;
-			}
-
-			if (stop.after(result.getRevisedDueDate())) {
-				// The SLA is invalid, the workflow stopped after the revised due date --> negative distance
-				resetRevisedDueDate(computationContext, result);
-				result.setRevisedDueDateDistance(-computationContext.moveForward(stop));
-			} else {
-				// The SLA is valid, the workflow stopped before the revised due date --> positive distance
-				computationContext.reset(stop);
-				result.setRevisedDueDateDistance(-computationContext.moveForward(result.getRevisedDueDate()));
-			}
-		}
-
-		return result;
-	}
-
-	/**
-	 * Reset computation context to due date as needed.
-	 */
-	private void resetRevisedDueDate(final ComputationContext computationContext, final SlaData result) {
-		if (computationContext.getCursor() == null) {
-			// First shift
-			computationContext.reset(result.getRevisedDueDate());
-		}
-	}
-
-	/**
-	 * Update the pause context.
-	 */
-	private void updatePause(final SlaData result, final StatusChange change,
-			final ComputationContext computationContext) {
-		if (result.getRevisedDueDate() != null && result.getRevisedDueDate().after(change.getChange().getCreated())) {
-			resetRevisedDueDate(computationContext, result);
-
-			// Update the revised due date
-			result.setRevisedDueDate(computationContext.moveForward(change.getElapsedtime()));
-		}
-	}
-
 	/**
 	 * Compute elapsed time for each related issues.
 	 */
-	private Map<Integer, IssueStatus> computedElapsedTimes(final List<ChangeItem> changes, final List<Date> holidays,
-			final List<BusinessHours> nonBusinessHours) {
-		final Map<Integer, IssueStatus> groupChanges = new LinkedHashMap<>();
+	private List<IssueStatus> computedElapsedTimes(final List<ChangeItem> changes, final BusinessCalendar calendar,
+			final BusinessInstant now) {
+		final List<IssueStatus> groupChanges = new ArrayList<>();
 		if (changes.isEmpty()) {
 			// Save some useless computations
 			return groupChanges;
 		}
-		final ComputationContext computationContext = new ComputationContext(holidays, nonBusinessHours);
-		computationContext.reset(changes.getFirst().getCreated());
-		long cumulatedElapsed = computeElapsedTimes(changes, groupChanges, computationContext);
+		final ComputationContext computationContext = new ComputationContext(calendar);
+		computationContext.reset(changes.getFirst().getCreated().getTime());
+		long cumulatedElapsed = computeElapsedTimes(changes, new IntIndex(), groupChanges, computationContext);
 
 		// Add elapsed time until now
-		cumulatedElapsed += computationContext.moveForward(new Date());
+		cumulatedElapsed += computationContext.moveForwardTo(now.getInstant());
 
 		// Update elapsed time for the tail
-		for (final IssueStatus value : groupChanges.values()) {
+		for (final IssueStatus value : groupChanges) {
 			updatePreviousStatus(cumulatedElapsed, null, value);
 		}
 		return groupChanges;
@@ -291,29 +688,36 @@ public class SlaProcessor {
 	/**
 	 * Compute elapsed time for each related issues. Unfinished workflows are not computed there.
 	 */
-	private long computeElapsedTimes(final List<ChangeItem> changes, final Map<Integer, IssueStatus> groupChanges,
-			final ComputationContext computationContext) {
+	private long computeElapsedTimes(final List<ChangeItem> changes, final IntIndex issues,
+			final List<IssueStatus> groupChanges, final ComputationContext computationContext) {
 		long cumulatedElapsed = 0;
 		for (final ChangeItem change : changes) {
 
 			// Compute the elapsed time for the last cursor to the creation of this change
-			final long elapsed = computationContext.moveForward(change.getCreated());
+			final long elapsed = computationContext.moveForwardTo(change.getCreated().getTime());
 			cumulatedElapsed += elapsed;
-			final IssueStatus value = getIssueStatus(groupChanges, change);
+			final IssueStatus value = getIssueStatus(issues, groupChanges, change);
 
 			// Update the elapsed time in the previous status
 			updatePreviousStatus(cumulatedElapsed, change, value);
 
 			// Add the new status, even for a creation
-			final StatusChange statusChange = new StatusChange();
-			statusChange.setStatus(change.getToStatus());
-			statusChange.setSnapshotTime(cumulatedElapsed);
-			statusChange.setChange(change);
-			value.getChanges().add(statusChange);
+			addStatusChange(cumulatedElapsed, change, value);
 		}
 		return cumulatedElapsed;
 	}
 
+	/**
+	 * Add the new status of the given change.
+	 */
+	private void addStatusChange(final long cumulatedElapsed, final ChangeItem change, final IssueStatus value) {
+		final StatusChange statusChange = new StatusChange();
+		statusChange.setStatus(change.getToStatus());
+		statusChange.setSnapshotTime(cumulatedElapsed);
+		statusChange.setChange(change);
+		value.getChanges().add(statusChange);
+	}
+
 	/**
 	 * Update the elapsed time of previous status.
 	 */
@@ -351,30 +755,38 @@ public class SlaProcessor {
 		}
 	}
 
-	private IssueStatus getIssueStatus(final Map<Integer, IssueStatus> groupChanges, final ChangeItem change) {
-		IssueStatus value = groupChanges.get(change.getId());
-		if (value == null) {
+	private IssueStatus getIssueStatus(final IntIndex issues, final List<IssueStatus> groupChanges,
+			final ChangeItem change) {
+		// Changes without issue identifier are grouped together
+		final int index = issues.add(ObjectUtils.getIfNull(change.getId(), Integer.MIN_VALUE));
+		if (index == groupChanges.size()) {
 			// Issue creation case
-			value = new IssueStatus();
-			value.setChanges(new ArrayList<>());
-			value.setCreated(change.getCreated());
-			value.setPkey(change.getPkey());
-			value.setId(change.getId());
-			value.setPriority(change.getPriority());
-			value.setStatus(change.getStatus());
-			value.setType(change.getType());
-			value.setAssignee(change.getAssignee());
-			value.setResolution(change.getResolution());
-			value.setReporter(change.getReporter());
-
-			// Timing
-			value.setTimeSpent(change.getTimeSpent());
-			value.setTimeEstimateInit(change.getTimeEstimateInit());
-			value.setTimeEstimate(change.getTimeEstimate());
-			value.setDueDate(change.getDueDate());
-
-			groupChanges.put(change.getId(), value);
+			groupChanges.add(newIssueStatus(change));
 		}
+		return groupChanges.get(index);
+	}
+
+	/**
+	 * Return a new issue from its first change.
+	 */
+	private IssueStatus newIssueStatus(final ChangeItem change) {
+		final IssueStatus value = new IssueStatus();
+		value.setChanges(new ArrayList<>());
+		value.setCreated(change.getCreated());
+		value.setPkey(change.getPkey());
+		value.setId(change.getId());
+		value.setPriority(change.getPriority());
+		value.setStatus(change.getStatus());
+		value.setType(change.getType());
+		value.setAssignee(change.getAssignee());
+		value.setResolution(change.getResolution());
+		value.setReporter(change.getReporter());
+
+		// Timing
+		value.setTimeSpent(change.getTimeSpent());
+		value.setTimeEstimateInit(change.getTimeEstimateInit());
+		value.setTimeEstimate(change.getTimeEstimate());
+		value.setDueDate(change.getDueDate());
 		return value;
 	}
 
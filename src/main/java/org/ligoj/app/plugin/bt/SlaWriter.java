@@ -0,0 +1,23 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Writer of the computed issues, one at a time, to an output. The output is completed by {@link #finish()} once all
+ * issues are written, and closed with this writer. Write failures are thrown as {@link java.io.UncheckedIOException}.
+ */
+public interface SlaWriter extends Consumer<IssueSla>, Closeable {
+
+	/**
+	 * Complete the output after the last issue. When this writer is closed without being finished, the output is left
+	 * unterminated, so a failed computation is never read as a complete one.
+	 *
+	 * @throws IOException When the output cannot be written.
+	 */
+	void finish() throws IOException;
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Counter of status occurrences, backed by primitive arrays. Read only {@link Map} view in insertion order, serialized
+ * as a regular map.
+ */
+public class StatusCounter extends AbstractMap<Integer, Integer> {
+
+	/**
+	 * Statuses index.
+	 */
+	private final IntIndex statuses;
+
+	/**
+	 * Counters, by status index.
+	 */
+	private int[] counters;
+
+	/**
+	 * Create an empty counter.
+	 */
+	public StatusCounter() {
+		this.statuses = new IntIndex();
+		this.counters = new int[8];
+	}
+
+	/**
+	 * Create a counter initialized with the given counts.
+	 *
+	 * @param counters The initial counts by status.
+	 */
+	public StatusCounter(final Map<Integer, Integer> counters) {
+		this();
+		counters.forEach(this::add);
+	}
+
+	/**
+	 * Increment the counter of the given status.
+	 *
+	 * @param status The status identifier.
+	 */
+	public void increment(final int status) {
+		add(status, 1);
+	}
+
+	/**
+	 * Add the given count to the counter of the given status.
+	 *
+	 * @param status The status identifier.
+	 * @param count  The count to add.
+	 */
+	public void add(final int status, final int count) {
+		final int index = statuses.add(status);
+		if (index == counters.length) {
+			counters = Arrays.copyOf(counters, index * 2);
+		}
+		counters[index] += count;
+	}
+
+	/**
+	 * Return the counter of the given status.
+	 *
+	 * @param status The status identifier.
+	 * @return The counter, <code>0</code> when not found.
+	 */
+	public int getCount(final int status) {
+		final int index = statuses.indexOf(status);
+		return index < 0 ? 0 : counters[index];
+	}
+
+	@Override
+	public Integer get(final Object key) {
+		if (key instanceof Integer status) {
+			final int index = statuses.indexOf(status);
+			return index < 0 ? null : counters[index];
+		}
+		return null;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return key instanceof Integer status && statuses.indexOf(status) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return statuses.size();
+	}
+
+	@Override
+	public Set<Entry<Integer, Integer>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Entry<Integer, Integer>> iterator() {
+				return new Iterator<>() {
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < statuses.size();
+					}
+
+					@Override
+					public Entry<Integer, Integer> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						final int current = index++;
+						return new SimpleImmutableEntry<>(statuses.getKey(current), counters[current]);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return statuses.size();
+			}
+		};
+	}
+}
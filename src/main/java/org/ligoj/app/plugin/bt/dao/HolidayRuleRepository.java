@@ -0,0 +1,15 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.dao;
+
+import org.ligoj.app.plugin.bt.model.HolidayRule;
+import org.ligoj.bootstrap.core.dao.RestRepository;
+
+/**
+ * {@link HolidayRule} repository.
+ */
+public interface HolidayRuleRepository extends RestRepository<HolidayRule, Integer> {
+
+	// All is delegated
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.dao;
+
+import java.util.List;
+
+import org.ligoj.app.plugin.bt.model.IssueCheckpoint;
+import org.ligoj.bootstrap.core.dao.RestRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * {@link IssueCheckpoint} repository.
+ */
+public interface IssueCheckpointRepository extends RestRepository<IssueCheckpoint, Integer> {
+
+	/**
+	 * Return the checkpoints of the given subscription.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @return The checkpoints with their SLA states.
+	 */
+	@Query("SELECT DISTINCT c FROM IssueCheckpoint c LEFT JOIN FETCH c.slas WHERE c.configuration.subscription.id = ?1")
+	List<IssueCheckpoint> findBySubscription(int subscription);
+
+	/**
+	 * Delete the SLA states of the checkpoints of the given configuration.
+	 *
+	 * @param configuration The configuration identifier.
+	 */
+	@Modifying
+	@Query("DELETE SlaCheckpoint WHERE issue.id IN (SELECT id FROM IssueCheckpoint WHERE configuration.id = ?1)")
+	void deleteSlaCheckpoints(int configuration);
+
+	/**
+	 * Delete the checkpoints of the given configuration. The SLA states must be deleted before.
+	 *
+	 * @param configuration The configuration identifier.
+	 */
+	@Modifying
+	@Query("DELETE IssueCheckpoint WHERE configuration.id = ?1")
+	void deleteIssueCheckpoints(int configuration);
+
+	/**
+	 * Delete all the checkpoints of the given configuration, so the next computation replays all changes.
+	 *
+	 * @param configuration The configuration identifier.
+	 */
+	default void deleteByConfiguration(final int configuration) {
+		deleteSlaCheckpoints(configuration);
+		deleteIssueCheckpoints(configuration);
+	}
+
+}
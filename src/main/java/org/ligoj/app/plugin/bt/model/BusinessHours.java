@@ -6,7 +6,6 @@ package org.ligoj.app.plugin.bt.model;
 import jakarta.persistence.Entity;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
-import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 
 import org.apache.commons.lang3.time.DateUtils;
@@ -20,12 +19,15 @@ import lombok.Getter;
 import lombok.Setter;
 
 /**
- * Non-business hours range.
+ * Business hours range. A range without day of week applies to the working days of the calendar having no range of
+ * their own. A range with a day of week makes this day a working day. The ranges of the same day of week cannot
+ * overlap nor start at the same time. This is checked by the resource, a database constraint would see the
+ * <code>null</code> days of week as distinct values.
  */
 @Getter
 @Setter
 @Entity
-@Table(name = "LIGOJ_BUSINESS_HOURS", uniqueConstraints = @UniqueConstraint(columnNames = { "configuration", "start" }))
+@Table(name = "LIGOJ_BUSINESS_HOURS")
 public class BusinessHours extends AbstractPersistable<Integer>
 		implements Comparable<BusinessHours>, Configurable<BugTrackerConfiguration, Integer> {
 
@@ -43,6 +45,13 @@ public class BusinessHours extends AbstractPersistable<Integer>
 	@Range(min = 0, max = DateUtils.MILLIS_PER_DAY)
 	private long end;
 
+	/**
+	 * ISO day of week of this range, from 1 for Monday to 7 for Sunday. When <code>null</code>, this range applies to
+	 * every working day without specific range.
+	 */
+	@Range(min = 1, max = 7)
+	private Integer dayOfWeek;
+
 	@ManyToOne
 	@NotNull
 	@JsonIgnore
@@ -3,6 +3,7 @@
  */
 package org.ligoj.app.plugin.bt.model;
 
+import java.time.ZoneId;
 import java.util.List;
 
 import jakarta.persistence.CascadeType;
@@ -12,6 +13,8 @@ import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
+import org.hibernate.validator.constraints.Length;
+import org.hibernate.validator.constraints.Range;
 import org.ligoj.bootstrap.core.model.AbstractNamedEntity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -20,7 +23,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 /**
- * Calendar. Saturday and Sunday are not business days.
+ * Calendar. By default, Saturday and Sunday are not business days.
  */
 @Getter
 @Setter
@@ -33,10 +36,55 @@ public class Calendar extends AbstractNamedEntity<Integer> {
 	 */
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * Default working days : Monday to Friday.
+	 */
+	public static final int DEFAULT_WORKING_DAYS = 0x1F;
+
 	@JsonIgnore
 	@OneToMany(mappedBy = "calendar", cascade = CascadeType.REMOVE)
 	@OrderBy("date ASC")
 	private List<Holiday> holidays;
 
+	/**
+	 * Recurring holidays, completing the dated {@link #holidays}.
+	 */
+	@JsonIgnore
+	@OneToMany(mappedBy = "calendar", cascade = CascadeType.REMOVE)
+	private List<HolidayRule> holidayRules;
+
 	private boolean asDefault;
+
+	/**
+	 * The time zone identifier of the business days and hours, such as <code>Europe/Paris</code>. When
+	 * <code>null</code>, the default time zone is used.
+	 */
+	@Length(max = 50)
+	private String zone;
+
+	/**
+	 * The working days of the week, one bit per day of week : bit 0 for Monday to bit 6 for Sunday. When
+	 * <code>null</code>, {@link #DEFAULT_WORKING_DAYS} are used. A day having business hours of its own is a working
+	 * day whatever this mask.
+	 */
+	@Range(min = 1, max = 0x7F)
+	private Integer workingDays;
+
+	/**
+	 * Return the resolved time zone of this calendar.
+	 *
+	 * @return The resolved time zone. Never <code>null</code>.
+	 */
+	public ZoneId toZoneId() {
+		return zone == null ? ZoneId.systemDefault() : ZoneId.of(zone);
+	}
+
+	/**
+	 * Return the resolved working days of this calendar.
+	 *
+	 * @return The working days mask, bit 0 for Monday to bit 6 for Sunday.
+	 */
+	public int toWorkingDays() {
+		return workingDays == null ? DEFAULT_WORKING_DAYS : workingDays;
+	}
 }
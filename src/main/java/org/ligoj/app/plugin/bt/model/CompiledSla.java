@@ -0,0 +1,83 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import lombok.Getter;
+
+/**
+ * Compiled form of the status and filter identifiers of a {@link Sla}. Each set of identifiers is an
+ * {@link IdentifierSet}, so lookups do not box the identifiers whatever their values. Immutable.
+ */
+@Getter
+public class CompiledSla {
+
+	/**
+	 * Starting status identifiers.
+	 */
+	private final IdentifierSet start;
+
+	/**
+	 * Ending status identifiers.
+	 */
+	private final IdentifierSet stop;
+
+	/**
+	 * Paused status identifiers.
+	 */
+	private final IdentifierSet paused;
+
+	/**
+	 * Filtered types. When empty, no filter.
+	 */
+	private final IdentifierSet types;
+
+	/**
+	 * Filtered priorities. When empty, no filter.
+	 */
+	private final IdentifierSet priorities;
+
+	/**
+	 * Filtered resolutions. When empty, no filter.
+	 */
+	private final IdentifierSet resolutions;
+
+	/**
+	 * Compile the identifier sets of the given SLA.
+	 *
+	 * @param sla The SLA with resolved identifier sets.
+	 */
+	public CompiledSla(final Sla sla) {
+		this.start = new IdentifierSet(sla.getStartAsSet());
+		this.stop = new IdentifierSet(sla.getStopAsSet());
+		this.paused = new IdentifierSet(sla.getPausedAsSet());
+		this.types = new IdentifierSet(sla.getTypesAsSet());
+		this.priorities = new IdentifierSet(sla.getPrioritiesAsSet());
+		this.resolutions = new IdentifierSet(sla.getResolutionsAsSet());
+	}
+
+	/**
+	 * Check the SLA can be applied for an issue.
+	 *
+	 * @param type       The issue type. May be <code>null</code>.
+	 * @param priority   The issue priority. May be <code>null</code>.
+	 * @param resolution The issue resolution. May be <code>null</code>.
+	 * @return <code>true</code> if SLA can be applied to this issue.
+	 */
+	public boolean isApplicable(final Integer type, final Integer priority, final Integer resolution) {
+		return checkAppliance(types, type) && checkAppliance(priorities, priority)
+				&& checkAppliance(resolutions, resolution);
+	}
+
+	/**
+	 * Check the value against the filtered ones.
+	 *
+	 * @param filteredIdentifiers the filtered identifiers.
+	 * @param identifier          the current identifier to check. May be <code>null</code>.
+	 * @return <code>true</code> there is no filtered identifiers or when the given identifier is in the filtered
+	 *         identifiers.
+	 */
+	private static boolean checkAppliance(final IdentifierSet filteredIdentifiers, final Integer identifier) {
+		return filteredIdentifiers.isEmpty() || identifier != null && filteredIdentifiers.contains(identifier);
+	}
+}
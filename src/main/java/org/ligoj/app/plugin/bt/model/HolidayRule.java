@@ -0,0 +1,140 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+
+import org.hibernate.validator.constraints.Range;
+import org.ligoj.bootstrap.core.model.AbstractNamedEntity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Recurring holiday, expanded for each year it applies to.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_BT_HOLIDAY_RULE")
+public class HolidayRule extends AbstractNamedEntity<Integer> {
+
+	/**
+	 * SID
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The linked calendar
+	 */
+	@ManyToOne
+	@JoinColumn(name = "calendar")
+	@NotNull
+	private Calendar calendar;
+
+	@NotNull
+	@Enumerated(EnumType.STRING)
+	private HolidayRuleType type;
+
+	/**
+	 * Month, from 1 for January to 12 for December. Ignored by {@link HolidayRuleType#EASTER}.
+	 */
+	@Range(min = 1, max = 12)
+	private Integer monthOfYear;
+
+	/**
+	 * Day of month of {@link HolidayRuleType#FIXED}.
+	 */
+	@Range(min = 1, max = 31)
+	private Integer dayOfMonth;
+
+	/**
+	 * ISO day of week of {@link HolidayRuleType#NTH_WEEKDAY}, from 1 for Monday to 7 for Sunday.
+	 */
+	@Range(min = 1, max = 7)
+	private Integer dayOfWeek;
+
+	/**
+	 * Occurrence of the day of week within the month of {@link HolidayRuleType#NTH_WEEKDAY}. From 1 for the first
+	 * one, negative from the end of the month : -1 for the last one.
+	 */
+	@Range(min = -5, max = 5)
+	private Integer ordinal;
+
+	/**
+	 * Days added to the resolved date, may be negative. For sample, 1 with {@link HolidayRuleType#EASTER} for the
+	 * Easter Monday.
+	 */
+	private int offsetDays;
+
+	/**
+	 * First year this rule applies to, inclusive. When <code>null</code>, no lower bound.
+	 */
+	private Integer fromYear;
+
+	/**
+	 * Last year this rule applies to, inclusive. When <code>null</code>, no upper bound.
+	 */
+	private Integer toYear;
+
+	/**
+	 * Return the holiday of this rule for the given year.
+	 *
+	 * @param year The year.
+	 * @return The holiday, or <code>null</code> when this rule does not apply to this year. The offset may move the
+	 *         returned day to the adjacent year.
+	 */
+	public LocalDate toDate(final int year) {
+		if (fromYear != null && year < fromYear || toYear != null && year > toYear) {
+			return null;
+		}
+		final LocalDate date = switch (type) {
+		case FIXED -> dayOfMonth > LocalDate.of(year, monthOfYear, 1).lengthOfMonth() ? null
+				: LocalDate.of(year, monthOfYear, dayOfMonth);
+		case NTH_WEEKDAY -> toNthWeekday(year);
+		case EASTER -> toEaster(year);
+		};
+		return date == null ? null : date.plusDays(offsetDays);
+	}
+
+	/**
+	 * Return the nth day of week of the month, <code>null</code> when the month has not so many.
+	 */
+	private LocalDate toNthWeekday(final int year) {
+		final LocalDate month = LocalDate.of(year, monthOfYear, 1);
+		final LocalDate date = month.with(TemporalAdjusters.dayOfWeekInMonth(ordinal, DayOfWeek.of(dayOfWeek)));
+		return date.getMonthValue() == monthOfYear ? date : null;
+	}
+
+	/**
+	 * Return the Easter Sunday of the given year, anonymous Gregorian algorithm.
+	 */
+	private static LocalDate toEaster(final int year) {
+		final int a = year % 19;
+		final int b = year / 100;
+		final int c = year % 100;
+		final int d = b / 4;
+		final int e = b % 4;
+		final int f = (b + 8) / 25;
+		final int g = (b - f + 1) / 3;
+		final int h = (19 * a + b - d - g + 15) % 30;
+		final int i = c / 4;
+		final int k = c % 4;
+		final int l = (32 + 2 * e + 2 * i - h - k) % 7;
+		final int m = (a + 11 * h + 22 * l) / 451;
+		final int month = (h + l - 7 * m + 114) / 31;
+		final int day = (h + l - 7 * m + 114) % 31 + 1;
+		return LocalDate.of(year, month, day);
+	}
+}
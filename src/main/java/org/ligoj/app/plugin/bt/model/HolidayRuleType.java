@@ -0,0 +1,25 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+/**
+ * Recurrence of a {@link HolidayRule}.
+ */
+public enum HolidayRuleType {
+
+	/**
+	 * Same day of month every year, such as December 25th.
+	 */
+	FIXED,
+
+	/**
+	 * Nth day of week of a month, such as the last Monday of May.
+	 */
+	NTH_WEEKDAY,
+
+	/**
+	 * Relative to the Easter Sunday of the Gregorian calendar, such as the Easter Monday.
+	 */
+	EASTER
+}
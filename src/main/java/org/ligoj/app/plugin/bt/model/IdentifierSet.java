@@ -0,0 +1,83 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Set of <code>int</code> identifiers. The identifiers from <code>0</code> to {@link #MAX_DENSE} excluded are stored
+ * in a {@link BitSet} indexed by the identifier. The other ones, negative or large, are remapped into a sorted array.
+ * So the identifiers are not bounded, while the usual small ones are found without boxing nor search. Immutable.
+ */
+public class IdentifierSet {
+
+	/**
+	 * Upper bound, excluded, of the identifiers stored in the bit set.
+	 */
+	public static final int MAX_DENSE = 1 << 16;
+
+	/**
+	 * The identifiers from <code>0</code> to {@link #MAX_DENSE} excluded.
+	 */
+	private final BitSet dense = new BitSet();
+
+	/**
+	 * The other identifiers, sorted and distinct.
+	 */
+	private final int[] sparse;
+
+	/**
+	 * Build the set of the given identifiers.
+	 *
+	 * @param identifiers The identifiers. Duplicates are ignored.
+	 */
+	public IdentifierSet(final Collection<Integer> identifiers) {
+		identifiers.stream().mapToInt(Integer::intValue).filter(IdentifierSet::isDense).forEach(dense::set);
+		this.sparse = identifiers.stream().mapToInt(Integer::intValue).filter(i -> !isDense(i)).sorted().distinct()
+				.toArray();
+	}
+
+	/**
+	 * Indicate the given identifier is stored in the bit set.
+	 *
+	 * @param identifier The identifier.
+	 * @return <code>true</code> when the identifier is between <code>0</code> and {@link #MAX_DENSE} excluded.
+	 */
+	public static boolean isDense(final int identifier) {
+		return identifier >= 0 && identifier < MAX_DENSE;
+	}
+
+	/**
+	 * Indicate the given identifier is in this set.
+	 *
+	 * @param identifier The identifier, any value.
+	 * @return <code>true</code> when the identifier is in this set.
+	 */
+	public boolean contains(final int identifier) {
+		return isDense(identifier) ? dense.get(identifier) : Arrays.binarySearch(sparse, identifier) >= 0;
+	}
+
+	/**
+	 * Indicate this set is empty.
+	 *
+	 * @return <code>true</code> when this set has no identifier.
+	 */
+	public boolean isEmpty() {
+		return dense.isEmpty() && sparse.length == 0;
+	}
+
+	/**
+	 * Send each identifier to the given consumer : the ones of the bit set in ascending order, then the other ones in
+	 * ascending order.
+	 *
+	 * @param consumer The identifier consumer.
+	 */
+	public void forEach(final IntConsumer consumer) {
+		dense.stream().forEach(consumer);
+		Arrays.stream(sparse).forEach(consumer);
+	}
+}
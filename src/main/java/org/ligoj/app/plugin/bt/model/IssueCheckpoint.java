@@ -0,0 +1,97 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.Lob;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+
+import org.ligoj.app.model.Configurable;
+import org.ligoj.bootstrap.core.model.AbstractPersistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * SLA computation state of an issue after its last processed change. The next computations only consume the changes
+ * created after this checkpoint. The status of the last processed change is still open, its elapsed time is not
+ * included in the SLA checkpoints.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_BT_ISSUE_CHECKPOINT", uniqueConstraints = @UniqueConstraint(columnNames = { "configuration",
+		"issue" }))
+public class IssueCheckpoint extends AbstractPersistable<Integer>
+		implements Configurable<BugTrackerConfiguration, Integer> {
+
+	@ManyToOne
+	@NotNull
+	@JsonIgnore
+	@JoinColumn(name = "configuration")
+	private BugTrackerConfiguration configuration;
+
+	/**
+	 * The issue identifier in the bug tracker.
+	 */
+	@NotNull
+	private Integer issue;
+
+	/**
+	 * The issue details, as provided by its first change.
+	 */
+	private String pkey;
+	private Date created;
+	private Integer priority;
+	private int status;
+	private int type;
+	private Integer resolution;
+	private String reporter;
+	private String assignee;
+	private Integer timeSpent;
+	private Integer timeEstimate;
+	private Integer timeEstimateInit;
+	private Date dueDate;
+
+	/**
+	 * Status of the last processed change, not yet ended.
+	 */
+	private int lastStatus;
+
+	/**
+	 * Creation date of the last processed change. Changes created until this date are already processed.
+	 */
+	@NotNull
+	private Date changed;
+
+	/**
+	 * Counter of the ended statuses. The last status is not counted. Stored as a LOB, there is no limit to the amount
+	 * of visited statuses.
+	 */
+	@Lob
+	@Convert(converter = StatusCounterConverter.class)
+	private Map<Integer, Integer> statusCounter = new HashMap<>();
+
+	/**
+	 * The states of the applicable SLA.
+	 */
+	@OneToMany(mappedBy = "issue", cascade = CascadeType.ALL, orphanRemoval = true)
+	private List<SlaCheckpoint> slas = new ArrayList<>();
+
+}
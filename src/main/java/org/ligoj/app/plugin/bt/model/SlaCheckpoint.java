@@ -0,0 +1,73 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.NotNull;
+
+import org.ligoj.bootstrap.core.model.AbstractPersistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * State of an applicable {@link Sla} of an issue checkpoint.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_BT_SLA_CHECKPOINT", uniqueConstraints = @UniqueConstraint(columnNames = { "issue", "sla" }))
+public class SlaCheckpoint extends AbstractPersistable<Integer> {
+
+	@ManyToOne
+	@NotNull
+	@JsonIgnore
+	@JoinColumn(name = "issue")
+	private IssueCheckpoint issue;
+
+	@ManyToOne
+	@NotNull
+	@JsonIgnore
+	@JoinColumn(name = "sla")
+	private Sla sla;
+
+	/**
+	 * The SLA is started and not yet stopped.
+	 */
+	private boolean started;
+
+	/**
+	 * The SLA is paused.
+	 */
+	private boolean paused;
+
+	/**
+	 * Accumulated business time, in milliseconds.
+	 */
+	private long duration;
+
+	/**
+	 * First start date.
+	 */
+	private Date start;
+
+	/**
+	 * First stop date.
+	 */
+	private Date stop;
+
+	/**
+	 * Due date shifted by the pauses.
+	 */
+	private Date revisedDueDate;
+
+}
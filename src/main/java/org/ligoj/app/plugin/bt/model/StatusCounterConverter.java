@@ -0,0 +1,36 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Store a status counter as a single column such as <code>1:2,3:1</code>, so the checkpoints of a configuration can be
+ * deleted with a bulk query.
+ */
+@Converter
+public class StatusCounterConverter implements AttributeConverter<Map<Integer, Integer>, String> {
+
+	@Override
+	public String convertToDatabaseColumn(final Map<Integer, Integer> counter) {
+		return counter.entrySet().stream().map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.joining(","));
+	}
+
+	@Override
+	public Map<Integer, Integer> convertToEntityAttribute(final String value) {
+		final Map<Integer, Integer> counter = new HashMap<>();
+		for (final String entry : StringUtils.split(StringUtils.defaultString(value), ',')) {
+			final int separator = entry.indexOf(':');
+			counter.put(Integer.valueOf(entry.substring(0, separator)), Integer.valueOf(entry.substring(separator + 1)));
+		}
+		return counter;
+	}
+}
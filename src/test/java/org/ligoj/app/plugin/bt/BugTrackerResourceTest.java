@@ -3,14 +3,21 @@
  */
 package org.ligoj.app.plugin.bt;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.time.DateUtils;
 import org.junit.jupiter.api.Assertions;
@@ -27,11 +34,15 @@ import org.ligoj.app.plugin.bt.dao.BugTrackerConfigurationRepository;
 import org.ligoj.app.plugin.bt.dao.BusinessHoursRepository;
 import org.ligoj.app.plugin.bt.dao.CalendarRepository;
 import org.ligoj.app.plugin.bt.dao.HolidayRepository;
+import org.ligoj.app.plugin.bt.dao.IssueCheckpointRepository;
 import org.ligoj.app.plugin.bt.dao.SlaRepository;
 import org.ligoj.app.plugin.bt.model.BugTrackerConfiguration;
 import org.ligoj.app.plugin.bt.model.BusinessHours;
 import org.ligoj.app.plugin.bt.model.Calendar;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
 import org.ligoj.app.plugin.bt.model.Holiday;
+import org.ligoj.app.plugin.bt.model.HolidayRuleType;
+import org.ligoj.app.plugin.bt.model.IssueCheckpoint;
 import org.ligoj.app.plugin.bt.model.Sla;
 import org.ligoj.app.resource.ServicePluginLocator;
 import org.ligoj.bootstrap.MatcherUtil;
@@ -45,6 +56,9 @@ import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * Test class of {@link BugTrackerResource}
  */
@@ -72,6 +86,9 @@ class BugTrackerResourceTest extends AbstractAppTest {
 	@Autowired
 	private SlaRepository slaRepository;
 
+	@Autowired
+	private IssueCheckpointRepository checkpointRepository;
+
 	@Autowired
 	private CalendarRepository calendarRepository;
 
@@ -81,6 +98,12 @@ class BugTrackerResourceTest extends AbstractAppTest {
 	@Autowired
 	private IdentifierHelper identifierHelper;
 
+	@Autowired
+	private ProviderMetadataCache metadataCache;
+
+	@Autowired
+	private BusinessCalendarCache calendarCache;
+
 	private int subscription;
 
 	@BeforeEach
@@ -89,6 +112,7 @@ class BugTrackerResourceTest extends AbstractAppTest {
 		persistEntities("csv", new Class<?>[]{Calendar.class, Holiday.class, Node.class, Project.class, Subscription.class,
 				BugTrackerConfiguration.class, BusinessHours.class, Sla.class}, StandardCharsets.UTF_8);
 		this.subscription = getSubscription("MDA");
+		metadataCache.clear();
 	}
 
 	/**
@@ -180,6 +204,151 @@ class BugTrackerResourceTest extends AbstractAppTest {
 		Assertions.assertEquals("Fixed", resolutions.getFirst());
 
 		Assertions.assertEquals("service:bt", resource.getKey());
+
+		// Provider data is cached until evicted
+		resource.getConfiguration(subscription);
+		Mockito.verify(jiraMock, Mockito.times(1)).getStatuses(subscription);
+		resource.evictMetadata(subscription);
+		resource.getConfiguration(subscription);
+		Mockito.verify(jiraMock, Mockito.times(2)).getStatuses(subscription);
+	}
+
+	@Test
+	void getSlaComputations() throws IOException {
+		final BugTrackerResource resource = newResourceWithProvider();
+		final ChangeItem close = newChange(3, getDate(2014, 8, 20, 0, 0, 0));
+		close.setFromStatus(1);
+		mockChanges(resource, newChange(1, getDate(2014, 8, 19, 0, 0, 0)), close);
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		resource.getSlaComputations(subscription).write(output);
+		final JsonNode computations = new ObjectMapper().readTree(output.toByteArray());
+		Assertions.assertEquals("Livraison", computations.get("slaConfigurations").get(0).get("name").asText());
+		final JsonNode issues = computations.get("issues");
+		Assertions.assertEquals(1, issues.size());
+		Assertions.assertEquals("MDA-1", issues.get(0).get("pkey").asText());
+		Assertions.assertEquals(1, issues.get(0).get("statusCounter").get("3").asInt());
+
+		// One business day between the two changes
+		Assertions.assertEquals(8 * DateUtils.MILLIS_PER_HOUR, issues.get(0).get("data").get(0).get("duration").asLong());
+	}
+
+	@Test
+	void getSlaComputationsCheckpoint() throws IOException {
+		final BugTrackerResource resource = newResourceWithProvider();
+		final ChangeItem close = newChange(3, getDate(2014, 8, 20, 0, 0, 0));
+		close.setFromStatus(1);
+		mockChanges(resource, newChange(1, getDate(2014, 8, 19, 0, 0, 0)), close);
+		resource.getSlaComputations(subscription).write(new ByteArrayOutputStream());
+
+		// The checkpoint of the issue is saved with the computation
+		final List<IssueCheckpoint> checkpoints = checkpointRepository.findBySubscription(subscription);
+		Assertions.assertEquals(1, checkpoints.size());
+		Assertions.assertEquals(1, checkpoints.getFirst().getIssue());
+		Assertions.assertEquals(repository.findBySubscription(subscription).getId(),
+				checkpoints.getFirst().getConfiguration().getId());
+
+		// The next computation resumes from this checkpoint with the same result
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		resource.getSlaComputations(subscription).write(output);
+		final JsonNode issues = new ObjectMapper().readTree(output.toByteArray()).get("issues");
+		Assertions.assertEquals(1, issues.size());
+		Assertions.assertEquals(1, issues.get(0).get("statusCounter").get("3").asInt());
+		Assertions.assertEquals(8 * DateUtils.MILLIS_PER_HOUR, issues.get(0).get("data").get(0).get("duration").asLong());
+		Assertions.assertEquals(1, checkpointRepository.findBySubscription(subscription).size());
+	}
+
+	@Test
+	void getSlaComputationsFailure() throws IOException {
+		final BugTrackerResource resource = newResourceWithProvider();
+		final BugTrackerServicePlugin jiraMock = resource.servicePluginLocator
+				.getResourceExpected("service:bt:jira:4", BugTrackerServicePlugin.class);
+		Mockito.when(jiraMock.getChanges(Mockito.eq(subscription), Mockito.anyList()))
+				.thenReturn(Stream.generate(() -> {
+					throw new IllegalStateException("broken");
+				}));
+
+		// The document is left unterminated
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		final StreamingOutput computations = resource.getSlaComputations(subscription);
+		Assertions.assertThrows(IllegalStateException.class, () -> computations.write(output));
+		Assertions.assertThrows(IOException.class, () -> new ObjectMapper().readTree(output.toByteArray()));
+
+		// No checkpoint is saved
+		Assertions.assertTrue(checkpointRepository.findBySubscription(subscription).isEmpty());
+	}
+
+	@Test
+	void getSlaComputationsCsv() throws IOException {
+		final BugTrackerResource resource = newResourceWithProvider();
+		mockChanges(resource, newChange(1, getDate(2014, 8, 19, 0, 0, 0)));
+
+		final Response response = resource.getSlaComputationsCsv(subscription, true);
+		Assertions.assertEquals("attachment; filename=sla-" + subscription + ".csv.gz",
+				response.getHeaderString("Content-Disposition"));
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		((StreamingOutput) response.getEntity()).write(output);
+		try (var input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+			final String[] lines = new String(input.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+			Assertions.assertEquals(2, lines.length);
+			Assertions.assertTrue(lines[0].startsWith("id;pkey;"));
+			Assertions.assertTrue(lines[0].endsWith(";Livraison revisedDueDateDistance"));
+			Assertions.assertTrue(lines[1].startsWith("1;MDA-1;2014/08/19"));
+		}
+	}
+
+	@Test
+	void getSlaComputationsNotSupported() throws IOException {
+		final BugTrackerResource resource = newResourceWithProvider();
+		final BugTrackerServicePlugin jiraMock = resource.servicePluginLocator
+				.getResourceExpected("service:bt:jira:4", BugTrackerServicePlugin.class);
+		Mockito.when(jiraMock.getChanges(Mockito.eq(subscription), Mockito.anyList())).thenCallRealMethod();
+		Assertions.assertThrows(BusinessException.class, () -> resource.getSlaComputations(subscription));
+	}
+
+	/**
+	 * Return a new change of the issue MDA-1.
+	 */
+	private ChangeItem newChange(final int toStatus, final Date created) {
+		final ChangeItem change = new ChangeItem();
+		change.setId(1);
+		change.setPkey("MDA-1");
+		change.setToStatus(toStatus);
+		change.setStatus(1);
+		change.setCreated(created);
+		return change;
+	}
+
+	/**
+	 * Mock the changes returned by the provider of the given resource. The status identifiers of the first SLA are
+	 * resolved by the provider : start 1, pause 2 and stop 3.
+	 */
+	private void mockChanges(final BugTrackerResource resource, final ChangeItem... changes) throws IOException {
+		final BugTrackerServicePlugin jiraMock = resource.servicePluginLocator
+				.getResourceExpected("service:bt:jira:4", BugTrackerServicePlugin.class);
+		Mockito.when(jiraMock.getChanges(Mockito.eq(subscription), Mockito.anyList())).then(invocation -> {
+			final List<Sla> slas = invocation.getArgument(1);
+			slas.getFirst().setStartAsSet(Collections.singleton(1));
+			slas.getFirst().setStopAsSet(Collections.singleton(3));
+			slas.getFirst().setPausedAsSet(Collections.singleton(2));
+			slas.getFirst().setTypesAsSet(Collections.emptySet());
+			slas.getFirst().setPrioritiesAsSet(Collections.emptySet());
+			slas.getFirst().setResolutionsAsSet(Collections.emptySet());
+			return Stream.of(changes);
+		});
+	}
+
+	/**
+	 * Return a new resource with a mocked bug tracker provider.
+	 */
+	private BugTrackerResource newResourceWithProvider() {
+		final BugTrackerResource resource = new BugTrackerResource();
+		applicationContext.getAutowireCapableBeanFactory().autowireBean(resource);
+		resource.servicePluginLocator = Mockito.mock(ServicePluginLocator.class);
+		final BugTrackerServicePlugin jiraMock = Mockito.mock(BugTrackerServicePlugin.class);
+		Mockito.when(resource.servicePluginLocator.getResourceExpected("service:bt:jira:4", BugTrackerServicePlugin.class))
+				.thenReturn(jiraMock);
+		return resource;
 	}
 
 	@Test
@@ -265,10 +434,11 @@ class BugTrackerResourceTest extends AbstractAppTest {
 		final Calendar calendar = calendarRepository.getDefault();
 		Assertions.assertEquals(configuration.getCalendar(), calendar);
 		Assertions.assertNotNull(calendar);
-		Assertions.assertEquals(4, calendar.getHolidays().size());
+		Assertions.assertEquals(0, calendar.getHolidays().size());
+		Assertions.assertEquals(2, calendar.getHolidayRules().size());
 		Assertions.assertEquals("Default", calendar.getName());
-		Assertions.assertNotNull(calendar.getHolidays().getFirst().getName());
-		Assertions.assertNotNull(calendar.getHolidays().getFirst().getDate());
+		Assertions.assertNotNull(calendar.getHolidayRules().getFirst().getName());
+		Assertions.assertEquals(HolidayRuleType.FIXED, calendar.getHolidayRules().getFirst().getType());
 
 		// Check default business hours
 		Assertions.assertEquals(1, configuration.getBusinessHours().size());
@@ -488,6 +658,60 @@ class BugTrackerResourceTest extends AbstractAppTest {
 		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> resource.addBusinessHours(vo)), "start", "Overlap");
 	}
 
+	@Test
+	void addBusinessHoursDayOfWeek() {
+		// Overlaps the business hours of the other days
+		final BusinessHoursEditionVo vo = new BusinessHoursEditionVo();
+		vo.setStart(10 * DateUtils.MILLIS_PER_HOUR);
+		vo.setEnd(12 * DateUtils.MILLIS_PER_HOUR);
+		vo.setDayOfWeek(6);
+		vo.setSubscription(subscription);
+		em.flush();
+		em.clear();
+		final int id = resource.addBusinessHours(vo);
+		em.flush();
+		em.clear();
+		Assertions.assertEquals(6, businessHoursRepository.findOneExpected(id).getDayOfWeek());
+	}
+
+	@Test
+	void addBusinessHoursSameStart() {
+		// Two ranges without day of week starting at the same time
+		final BusinessHoursEditionVo vo = new BusinessHoursEditionVo();
+		vo.setStart(9 * DateUtils.MILLIS_PER_HOUR);
+		vo.setEnd(10 * DateUtils.MILLIS_PER_HOUR);
+		vo.setSubscription(subscription);
+		em.flush();
+		em.clear();
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> resource.addBusinessHours(vo)), "start", "Overlap");
+	}
+
+	@Test
+	void addBusinessHoursDayOfWeekSameStart() throws Exception {
+		// Constraint created by the previous versions, with a case-sensitive name
+		em.createNativeQuery(
+				"ALTER TABLE LIGOJ_BUSINESS_HOURS ADD CONSTRAINT \"Uk_Bt_Legacy\" UNIQUE (configuration, start)")
+				.executeUpdate();
+		resource.update("3.0.0");
+		Assertions.assertEquals(0, ((Number) em.createNativeQuery(
+				"SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE CONSTRAINT_NAME = 'Uk_Bt_Legacy'")
+				.getSingleResult()).intValue());
+
+		// Saturday range starting as the ranges of the other days
+		final BusinessHoursEditionVo vo = new BusinessHoursEditionVo();
+		vo.setStart(9 * DateUtils.MILLIS_PER_HOUR);
+		vo.setEnd(12 * DateUtils.MILLIS_PER_HOUR);
+		vo.setDayOfWeek(6);
+		vo.setSubscription(subscription);
+		em.flush();
+		em.clear();
+		final int id = resource.addBusinessHours(vo);
+		em.flush();
+		em.clear();
+		Assertions.assertEquals(6, businessHoursRepository.findOneExpected(id).getDayOfWeek());
+		Assertions.assertEquals(3, repository.findBySubscription(subscription).getBusinessHours().size());
+	}
+
 	@Test
 	void addBusinessHoursOverlapsEnd() {
 		final BusinessHoursEditionVo vo = new BusinessHoursEditionVo();
@@ -536,6 +760,10 @@ class BugTrackerResourceTest extends AbstractAppTest {
 		calendar.setName("Any");
 		calendarRepository.saveAndFlush(calendar);
 		final int id = calendar.getId();
+		final BugTrackerConfiguration previous = repository.findBySubscription(subscription);
+		final BusinessCalendar compiled = calendarCache.getCalendar(previous);
+		final int previousId = previous.getCalendar().getId();
+		final List<BusinessHours> businessHours = new ArrayList<>(previous.getBusinessHours());
 		em.clear();
 
 		resource.setCalendar(subscription, id);
@@ -543,6 +771,12 @@ class BugTrackerResourceTest extends AbstractAppTest {
 		em.clear();
 		Assertions.assertEquals(id, repository.findBySubscription(subscription).getCalendar().getId().intValue());
 
+		// The previous calendar has been evicted
+		final BugTrackerConfiguration other = new BugTrackerConfiguration();
+		other.setCalendar(calendarRepository.findOneExpected(previousId));
+		other.setBusinessHours(businessHours);
+		Assertions.assertNotSame(compiled, calendarCache.getCalendar(other));
+
 	}
 
 	@Test
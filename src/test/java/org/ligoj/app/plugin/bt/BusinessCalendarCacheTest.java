@@ -0,0 +1,115 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.bt.model.BugTrackerConfiguration;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.Calendar;
+import org.ligoj.app.plugin.bt.model.Holiday;
+import org.ligoj.bootstrap.AbstractDataGeneratorTest;
+
+/**
+ * Test class of {@link BusinessCalendarCache}
+ */
+class BusinessCalendarCacheTest extends AbstractDataGeneratorTest {
+
+	private final BusinessCalendarCache cache = new BusinessCalendarCache();
+
+	@Test
+	void getCalendar() {
+		final Calendar calendar = newCalendar(1);
+		final BusinessCalendar compiled = cache.getCalendar(newConfiguration(calendar, 9, 18));
+		Assertions.assertSame(compiled, cache.getCalendar(newConfiguration(calendar, 9, 18)));
+
+		// 2014/03/03 = Mon, holiday
+		Assertions.assertEquals(9 * DateUtils.MILLIS_PER_HOUR,
+				compiled.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 5).getTime()));
+	}
+
+	@Test
+	void getCalendarOtherBusinessHours() {
+		final Calendar calendar = newCalendar(1);
+		Assertions.assertNotSame(cache.getCalendar(newConfiguration(calendar, 9, 18)),
+				cache.getCalendar(newConfiguration(calendar, 8, 18)));
+	}
+
+	@Test
+	void getCalendarOtherCalendar() {
+		Assertions.assertNotSame(cache.getCalendar(newConfiguration(newCalendar(1), 9, 18)),
+				cache.getCalendar(newConfiguration(newCalendar(2), 9, 18)));
+	}
+
+	@Test
+	void getCalendarOtherWorkingDays() {
+		final Calendar calendar = newCalendar(1);
+		final BusinessCalendar compiled = cache.getCalendar(newConfiguration(calendar, 9, 18));
+		calendar.setWorkingDays(0x3F);
+		final BusinessCalendar saturday = cache.getCalendar(newConfiguration(calendar, 9, 18));
+		Assertions.assertNotSame(compiled, saturday);
+		Assertions.assertEquals(6 * 9 * DateUtils.MILLIS_PER_HOUR, saturday.getWeekDuration());
+	}
+
+	@Test
+	void getCalendarContent() {
+		final List<Date> holidays = List.of(getDate(2014, 3, 3));
+		final BusinessCalendar compiled = cache.getCalendar(holidays,
+				newConfiguration(newCalendar(1), 9, 18).getBusinessHours(), ZoneId.systemDefault());
+		Assertions.assertSame(compiled, cache.getCalendar(new ArrayList<>(holidays),
+				newConfiguration(newCalendar(2), 9, 18).getBusinessHours(), ZoneId.systemDefault()));
+		Assertions.assertNotSame(compiled, cache.getCalendar(List.of(getDate(2014, 3, 4)),
+				newConfiguration(newCalendar(1), 9, 18).getBusinessHours(), ZoneId.systemDefault()));
+		Assertions.assertNotSame(compiled, cache.getCalendar(holidays,
+				newConfiguration(newCalendar(1), 8, 18).getBusinessHours(), ZoneId.systemDefault()));
+
+		// 2014/03/03 = Mon, holiday
+		Assertions.assertEquals(9 * DateUtils.MILLIS_PER_HOUR,
+				compiled.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 5).getTime()));
+
+		// Not linked to a persisted calendar, evicted with any calendar
+		cache.evict(1);
+		Assertions.assertNotSame(compiled, cache.getCalendar(holidays,
+				newConfiguration(newCalendar(1), 9, 18).getBusinessHours(), ZoneId.systemDefault()));
+	}
+
+	@Test
+	void evict() {
+		final Calendar calendar = newCalendar(1);
+		final Calendar other = newCalendar(2);
+		final BusinessCalendar compiled = cache.getCalendar(newConfiguration(calendar, 9, 18));
+		final BusinessCalendar compiledOther = cache.getCalendar(newConfiguration(other, 9, 18));
+		cache.evict(1);
+		Assertions.assertNotSame(compiled, cache.getCalendar(newConfiguration(calendar, 9, 18)));
+		Assertions.assertSame(compiledOther, cache.getCalendar(newConfiguration(other, 9, 18)));
+		cache.clear();
+		Assertions.assertNotSame(compiledOther, cache.getCalendar(newConfiguration(other, 9, 18)));
+	}
+
+	private Calendar newCalendar(final int id) {
+		final Calendar calendar = new Calendar();
+		calendar.setId(id);
+		final Holiday holiday = new Holiday();
+		holiday.setDate(getDate(2014, 3, 3));
+		holiday.setCalendar(calendar);
+		calendar.setHolidays(List.of(holiday));
+		return calendar;
+	}
+
+	private BugTrackerConfiguration newConfiguration(final Calendar calendar, final int start, final int end) {
+		final BugTrackerConfiguration configuration = new BugTrackerConfiguration();
+		configuration.setCalendar(calendar);
+		final BusinessHours range = new BusinessHours();
+		range.setStart(start * DateUtils.MILLIS_PER_HOUR);
+		range.setEnd(end * DateUtils.MILLIS_PER_HOUR);
+		configuration.setBusinessHours(new ArrayList<>(List.of(range)));
+		return configuration;
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.HolidayRule;
+import org.ligoj.app.plugin.bt.model.HolidayRuleType;
+import org.ligoj.bootstrap.AbstractDataGeneratorTest;
+
+/**
+ * Test class of {@link BusinessCalendar}
+ */
+class BusinessCalendarTest extends AbstractDataGeneratorTest {
+
+	@Test
+	void getDuration() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18));
+
+		// 2014/03/03 = Mon
+		Assertions.assertEquals(7 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 4).getTime()));
+		Assertions.assertEquals(2 * DateUtils.MILLIS_PER_HOUR, calendar
+				.getDuration(getDate(2014, 3, 3, 11, 0, 0).getTime(), getDate(2014, 3, 3, 15, 0, 0).getTime()));
+
+		// 2014/03/08 = Sat, 2014/03/09 = Sun
+		Assertions.assertEquals(5 * 7 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 10).getTime()));
+	}
+
+	@Test
+	void getDurationReversed() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		Assertions.assertEquals(0, calendar.getDuration(getDate(2014, 3, 4).getTime(), getDate(2014, 3, 3).getTime()));
+	}
+
+	@Test
+	void getDurations() {
+		final List<Date> holidays = new ArrayList<>();
+		holidays.add(getDate(2014, 3, 4));
+		final BusinessCalendar calendar = new BusinessCalendar(holidays, newRanges(9, 12, 14, 18));
+		final long[] durations = calendar.getDurations(
+				new long[] { getDate(2014, 3, 3).getTime(), getDate(2014, 3, 4).getTime(), getDate(2040, 3, 3).getTime() },
+				new long[] { getDate(2014, 3, 10).getTime(), getDate(2014, 3, 3).getTime(), getDate(2040, 3, 6).getTime() });
+
+		// 2014/03/04 = holiday, reversed interval, 2040/03/05 = Mon
+		Assertions.assertArrayEquals(new long[] { 4 * 7 * DateUtils.MILLIS_PER_HOUR, 0, 7 * DateUtils.MILLIS_PER_HOUR },
+				durations);
+		Assertions.assertEquals(0, calendar.getDurations(new long[0], new long[0]).length);
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> calendar.getDurations(new long[1], new long[2]));
+	}
+
+	@Test
+	void getDurationsParallel() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18));
+		final Random random = new Random(1);
+		final long origin = getDate(2014, 3, 3).getTime();
+		final long[] starts = new long[100000];
+		final long[] ends = new long[starts.length];
+		for (int i = 0; i < starts.length; i++) {
+			starts[i] = origin + random.nextLong(1000 * DateUtils.MILLIS_PER_DAY);
+			ends[i] = starts[i] + random.nextLong(-DateUtils.MILLIS_PER_DAY, 30 * DateUtils.MILLIS_PER_DAY);
+		}
+		final long[] durations = calendar.getDurations(starts, ends);
+		for (int i = 0; i < starts.length; i++) {
+			Assertions.assertEquals(calendar.getDuration(starts[i], ends[i]), durations[i]);
+		}
+	}
+
+	@Test
+	void getDurationHolidays() {
+		final List<Date> holidays = new ArrayList<>();
+		holidays.add(getDate(2014, 3, 4));
+		holidays.add(getDate(2014, 3, 6));
+		final BusinessCalendar calendar = new BusinessCalendar(holidays, new ArrayList<>());
+		Assertions.assertEquals(3 * DateUtils.MILLIS_PER_DAY,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 10).getTime()));
+	}
+
+	@Test
+	void getDurationExtendIndex() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18));
+		final long week = 5 * 7 * DateUtils.MILLIS_PER_HOUR;
+
+		// 2014/03/03 = Mon, first indexed days
+		Assertions.assertEquals(week,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 10).getTime()));
+
+		// 2040/03/05 = Mon, 2040/03/12 = Mon, far after the initial index
+		Assertions.assertEquals(week,
+				calendar.getDuration(getDate(2040, 3, 5).getTime(), getDate(2040, 3, 12).getTime()));
+
+		// 1990/03/05 = Mon, 1990/03/12 = Mon, far before the initial index
+		Assertions.assertEquals(week,
+				calendar.getDuration(getDate(1990, 3, 5).getTime(), getDate(1990, 3, 12).getTime()));
+		Assertions.assertEquals(week,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 10).getTime()));
+	}
+
+	@Test
+	void toNextBusiness() {
+		final List<Date> holidays = new ArrayList<>();
+		holidays.add(getDate(2014, 3, 3));
+		final BusinessCalendar calendar = new BusinessCalendar(holidays, newRanges(9, 12, 14, 18));
+
+		// Within a business range
+		Assertions.assertEquals(getDate(2014, 3, 4, 10, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 4, 10, 0, 0).getTime()));
+
+		// Between two business ranges
+		Assertions.assertEquals(getDate(2014, 3, 4, 14, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 4, 12, 0, 0).getTime()));
+
+		// 2014/03/01 = Sat, 2014/03/02 = Sun, 2014/03/03 = holiday
+		Assertions.assertEquals(getDate(2014, 3, 4, 9, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 1, 10, 0, 0).getTime()));
+	}
+
+	@Test
+	void toNextBusinessHolidays() {
+		final List<Date> holidays = new ArrayList<>();
+		holidays.add(getDate(2040, 3, 5));
+		for (int day = 3; day <= 14; day++) {
+			holidays.add(getDate(2014, 3, day));
+		}
+		final BusinessCalendar calendar = new BusinessCalendar(holidays, newRanges(9, 12, 14, 18));
+
+		// 2014/03/15 = Sat, 2014/03/16 = Sun
+		Assertions.assertEquals(getDate(2014, 3, 17, 9, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 1).getTime()));
+
+		// 2040/03/05 = Mon, holiday
+		Assertions.assertEquals(getDate(2040, 3, 6, 9, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2040, 3, 3).getTime()));
+	}
+
+	@Test
+	void toDayStart() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		Assertions.assertEquals(getDate(2014, 3, 4).getTime(),
+				calendar.toDayStart(getDate(2014, 3, 4, 10, 0, 0).getTime()));
+	}
+
+	@Test
+	void toInstant() {
+		final List<Date> holidays = new ArrayList<>();
+		holidays.add(getDate(2014, 3, 3));
+		final BusinessCalendar calendar = new BusinessCalendar(holidays, newRanges(9, 12, 14, 18));
+		final long start = calendar.toBusinessTime(getDate(2014, 2, 28, 11, 0, 0).getTime());
+
+		// Within the same business range
+		Assertions.assertEquals(getDate(2014, 2, 28, 11, 30, 0).getTime(),
+				calendar.toInstant(start + DateUtils.MILLIS_PER_HOUR / 2));
+
+		// End of a business range, moved to the next one
+		Assertions.assertEquals(getDate(2014, 2, 28, 14, 0, 0).getTime(),
+				calendar.toInstant(start + DateUtils.MILLIS_PER_HOUR));
+
+		// 2014/03/01 = Sat, 2014/03/02 = Sun, 2014/03/03 = holiday
+		Assertions.assertEquals(getDate(2014, 3, 4, 9, 0, 0).getTime(),
+				calendar.toInstant(start + 5 * DateUtils.MILLIS_PER_HOUR));
+		Assertions.assertEquals(getDate(2014, 3, 4, 10, 0, 0).getTime(),
+				calendar.toInstant(start + 6 * DateUtils.MILLIS_PER_HOUR));
+	}
+
+	@Test
+	void toInstantExtendIndex() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18));
+		final long start = calendar.toBusinessTime(getDate(2014, 3, 3, 9, 0, 0).getTime());
+		final long week = 5 * 7 * DateUtils.MILLIS_PER_HOUR;
+
+		// 2040/03/05 = Mon, 1357 weeks later
+		Assertions.assertEquals(getDate(2040, 3, 5, 9, 0, 0).getTime(), calendar.toInstant(start + 1357 * week));
+
+		// 1990/03/05 = Mon, 1252 weeks before
+		Assertions.assertEquals(getDate(1990, 3, 5, 9, 0, 0).getTime(), calendar.toInstant(start - 1252 * week));
+	}
+
+	@Test
+	void toInstantReverse() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18));
+		final long instant = getDate(2014, 3, 5, 15, 20, 0).getTime();
+		Assertions.assertEquals(instant, calendar.toInstant(calendar.toBusinessTime(instant)));
+	}
+
+	@Test
+	void toNextBusinessZone() {
+		final ZoneId zone = ZoneId.of("UTC");
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18), zone);
+		Assertions.assertEquals(zone, calendar.getZone());
+		Assertions.assertEquals(toInstant(2014, 3, 3, 9, zone),
+				calendar.toNextBusiness(toInstant(2014, 3, 3, 0, zone)));
+		Assertions.assertEquals(toInstant(2014, 3, 3, 0, zone), calendar.toDayStart(toInstant(2014, 3, 3, 13, zone)));
+	}
+
+	@Test
+	void getDurationDaylightSavingTime() {
+		// 2014/03/28 = Fri, 02:00 -> 03:00
+		final ZoneId zone = ZoneId.of("Asia/Jerusalem");
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>(), zone);
+		Assertions.assertEquals(23 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(toInstant(2014, 3, 28, 0, zone), toInstant(2014, 3, 29, 0, zone)));
+		Assertions.assertEquals(toInstant(2014, 3, 28, 0, zone), calendar.toDayStart(toInstant(2014, 3, 28, 23, zone)));
+	}
+
+	@Test
+	void toNextBusinessDaylightSavingTime() {
+		// 2014/03/28 = Fri, 02:00 -> 03:00
+		final ZoneId zone = ZoneId.of("Asia/Jerusalem");
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18), zone);
+		Assertions.assertEquals(toInstant(2014, 3, 28, 9, zone),
+				calendar.toNextBusiness(toInstant(2014, 3, 28, 0, zone)));
+		Assertions.assertEquals(7 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(toInstant(2014, 3, 28, 0, zone), toInstant(2014, 3, 29, 0, zone)));
+		final long start = calendar.toBusinessTime(toInstant(2014, 3, 28, 9, zone));
+		Assertions.assertEquals(toInstant(2014, 3, 28, 14, zone),
+				calendar.toInstant(start + 3 * DateUtils.MILLIS_PER_HOUR));
+	}
+
+	@Test
+	void getDurationDayOfWeek() {
+		// Saturday half day
+		final List<BusinessHours> ranges = newRanges(9, 12, 14, 18);
+		ranges.addAll(newRanges(9, 12));
+		ranges.getLast().setDayOfWeek(6);
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), ranges, ZoneId.systemDefault(), 0x3F);
+		Assertions.assertEquals(5 * 7 * DateUtils.MILLIS_PER_HOUR + 3 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getWeekDuration());
+
+		// 2014/03/08 = Sat, 2014/03/09 = Sun
+		Assertions.assertEquals(3 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(getDate(2014, 3, 8).getTime(), getDate(2014, 3, 10).getTime()));
+		Assertions.assertEquals(getDate(2014, 3, 8, 9, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 7, 18, 0, 0).getTime()));
+		Assertions.assertEquals(getDate(2014, 3, 10, 9, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 8, 12, 0, 0).getTime()));
+	}
+
+	@Test
+	void getDurationWorkingDays() {
+		// Monday and Wednesday
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), newRanges(9, 12, 14, 18),
+				ZoneId.systemDefault(), 0x05);
+		Assertions.assertEquals(2 * 7 * DateUtils.MILLIS_PER_HOUR, calendar.getWeekDuration());
+		Assertions.assertEquals(2 * 7 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 10).getTime()));
+		Assertions.assertEquals(getDate(2014, 3, 5, 9, 0, 0).getTime(),
+				calendar.toNextBusiness(getDate(2014, 3, 4, 9, 0, 0).getTime()));
+	}
+
+	@Test
+	void getDurationDayOfWeekNotWorking() {
+		// Saturday half day, with the default working days
+		final List<BusinessHours> ranges = newRanges(9, 12, 14, 18);
+		ranges.addAll(newRanges(9, 12));
+		ranges.getLast().setDayOfWeek(6);
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), ranges, ZoneId.systemDefault());
+		Assertions.assertEquals(5 * 7 * DateUtils.MILLIS_PER_HOUR + 3 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getWeekDuration());
+
+		// 2014/03/08 = Sat, 2014/03/09 = Sun
+		Assertions.assertEquals(3 * DateUtils.MILLIS_PER_HOUR,
+				calendar.getDuration(getDate(2014, 3, 8).getTime(), getDate(2014, 3, 10).getTime()));
+	}
+
+	@Test
+	void getDurationNoBusinessTime() {
+		final List<BusinessHours> ranges = newRanges(12, 9);
+		ranges.getFirst().setDayOfWeek(7);
+		Assertions.assertThrows(IllegalArgumentException.class,
+				() -> new BusinessCalendar(new ArrayList<>(), ranges, ZoneId.systemDefault(), 0x1F));
+	}
+
+	@Test
+	void toInstantWholeWeeks() {
+		final List<Date> holidays = new ArrayList<>();
+		holidays.add(getDate(2014, 3, 4));
+		final BusinessCalendar calendar = new BusinessCalendar(holidays, newRanges(9, 12, 14, 18));
+		final long start = calendar.toBusinessTime(getDate(2014, 3, 3, 9, 0, 0).getTime());
+
+		// 2114/02/26 = Mon, 5217 weeks later, one holiday
+		Assertions.assertEquals(getDate(2114, 2, 26, 9, 0, 0).getTime(),
+				calendar.toInstant(start + 5217 * calendar.getWeekDuration() - 7 * DateUtils.MILLIS_PER_HOUR));
+	}
+
+	@Test
+	void getDurationHolidayRules() {
+		final HolidayRule easterMonday = newRule(HolidayRuleType.EASTER, null, null, null, null, 1);
+		final HolidayRule fixed = newRule(HolidayRuleType.FIXED, 3, 4, null, null, 0);
+		fixed.setFromYear(2015);
+		final HolidayRule newYearEve = newRule(HolidayRuleType.FIXED, 12, 31, null, null, 1);
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(),
+				List.of(easterMonday, fixed, newYearEve), new ArrayList<>(), ZoneId.systemDefault(), 0x1F);
+
+		// 2014/04/21 = Easter Monday
+		Assertions.assertEquals(4 * DateUtils.MILLIS_PER_DAY,
+				calendar.getDuration(getDate(2014, 4, 21).getTime(), getDate(2014, 4, 28).getTime()));
+
+		// 2014/03/04 = Tue, before the first year of the rule, 2015/03/04 = Wed
+		Assertions.assertEquals(5 * DateUtils.MILLIS_PER_DAY,
+				calendar.getDuration(getDate(2014, 3, 3).getTime(), getDate(2014, 3, 10).getTime()));
+		Assertions.assertEquals(4 * DateUtils.MILLIS_PER_DAY,
+				calendar.getDuration(getDate(2015, 3, 2).getTime(), getDate(2015, 3, 9).getTime()));
+
+		// 2015/01/01 = Thu, moved from the previous year
+		Assertions.assertEquals(4 * DateUtils.MILLIS_PER_DAY,
+				calendar.getDuration(getDate(2014, 12, 29).getTime(), getDate(2015, 1, 5).getTime()));
+
+		// 2114/04/23 = Easter Monday, expanded far from the initial index
+		Assertions.assertEquals(4 * DateUtils.MILLIS_PER_DAY,
+				calendar.getDuration(getDate(2114, 4, 23).getTime(), getDate(2114, 4, 30).getTime()));
+	}
+
+	@Test
+	void holidayRuleToDate() {
+		Assertions.assertEquals(LocalDate.of(2024, 3, 31),
+				newRule(HolidayRuleType.EASTER, null, null, null, null, 0).toDate(2024));
+		Assertions.assertEquals(LocalDate.of(2025, 4, 20),
+				newRule(HolidayRuleType.EASTER, null, null, null, null, 0).toDate(2025));
+
+		// Last Monday of May, first Monday of September
+		Assertions.assertEquals(LocalDate.of(2014, 5, 26),
+				newRule(HolidayRuleType.NTH_WEEKDAY, 5, null, 1, -1, 0).toDate(2014));
+		Assertions.assertEquals(LocalDate.of(2014, 9, 1),
+				newRule(HolidayRuleType.NTH_WEEKDAY, 9, null, 1, 1, 0).toDate(2014));
+
+		// No fifth Monday in February 2014, no February 29th in 2014
+		Assertions.assertNull(newRule(HolidayRuleType.NTH_WEEKDAY, 2, null, 1, 5, 0).toDate(2014));
+		Assertions.assertNull(newRule(HolidayRuleType.FIXED, 2, 29, null, null, 0).toDate(2014));
+		Assertions.assertEquals(LocalDate.of(2016, 2, 29),
+				newRule(HolidayRuleType.FIXED, 2, 29, null, null, 0).toDate(2016));
+
+		// Out of the years of the rule
+		final HolidayRule rule = newRule(HolidayRuleType.FIXED, 12, 25, null, null, 0);
+		rule.setFromYear(2015);
+		rule.setToYear(2016);
+		Assertions.assertNull(rule.toDate(2014));
+		Assertions.assertEquals(LocalDate.of(2016, 12, 25), rule.toDate(2016));
+		Assertions.assertNull(rule.toDate(2017));
+	}
+
+	/**
+	 * Return a new holiday rule.
+	 */
+	private HolidayRule newRule(final HolidayRuleType type, final Integer month, final Integer dayOfMonth,
+			final Integer dayOfWeek, final Integer ordinal, final int offsetDays) {
+		final HolidayRule rule = new HolidayRule();
+		rule.setType(type);
+		rule.setMonthOfYear(month);
+		rule.setDayOfMonth(dayOfMonth);
+		rule.setDayOfWeek(dayOfWeek);
+		rule.setOrdinal(ordinal);
+		rule.setOffsetDays(offsetDays);
+		return rule;
+	}
+
+	/**
+	 * Return the instant of the given wall clock hour in the given zone.
+	 */
+	private long toInstant(final int year, final int month, final int day, final int hour, final ZoneId zone) {
+		return ZonedDateTime.of(year, month, day, hour, 0, 0, 0, zone).toInstant().toEpochMilli();
+	}
+
+	/**
+	 * Return a list of business hours ranges.
+	 */
+	private List<BusinessHours> newRanges(final int... businessHoursCouples) {
+		final List<BusinessHours> ranges = new ArrayList<>();
+		for (int i = 0; i < businessHoursCouples.length; i += 2) {
+			final BusinessHours range = new BusinessHours();
+			range.setStart(businessHoursCouples[i] * DateUtils.MILLIS_PER_HOUR);
+			range.setEnd(businessHoursCouples[i + 1] * DateUtils.MILLIS_PER_HOUR);
+			ranges.add(range);
+		}
+		return ranges;
+	}
+}
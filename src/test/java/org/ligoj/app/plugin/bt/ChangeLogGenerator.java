@@ -0,0 +1,408 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang3.time.DateUtils;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.IssueDetails;
+
+/**
+ * Deterministic generator of realistic changelogs for load and regression tests. The issues follow a workflow with
+ * pause states and reopen loops, and the time spent in each status follows a log-normal distribution, so most issues
+ * are short-lived and a few last for months. The same seed and settings always produce the same changelog.
+ * <br>
+ * Workflow : OPEN -&gt; IN_PROGRESS &lt;-&gt; WAITING (pause), IN_PROGRESS -&gt; RESOLVED -&gt; CLOSED, RESOLVED or
+ * CLOSED -&gt; REOPENED -&gt; IN_PROGRESS.
+ */
+public class ChangeLogGenerator {
+
+	/**
+	 * Workflow statuses.
+	 */
+	public static final int OPEN = 1;
+	public static final int IN_PROGRESS = 2;
+	public static final int WAITING = 3;
+	public static final int RESOLVED = 4;
+	public static final int CLOSED = 5;
+	public static final int REOPENED = 6;
+
+	/**
+	 * Binary file signature and version.
+	 */
+	private static final int MAGIC = 0x4254434C;
+	private static final int VERSION = 1;
+
+	private final long seed;
+	private int issues = 1000;
+	private int maxChangesPerIssue = 20;
+	private double pauseRate = 0.3;
+	private double reopenRate = 0.15;
+	private long start = LocalDate.of(2014, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+	private long period = 365 * DateUtils.MILLIS_PER_DAY;
+	private double medianHours = 8;
+	private double sigma = 1.5;
+
+	/**
+	 * Create a generator with the default settings : 1000 issues created during one year from 2014/01/01 UTC.
+	 *
+	 * @param seed The random seed.
+	 */
+	public ChangeLogGenerator(final long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Set the amount of issues.
+	 *
+	 * @param issues The amount of issues.
+	 * @return This generator.
+	 */
+	public ChangeLogGenerator issues(final int issues) {
+		this.issues = issues;
+		return this;
+	}
+
+	/**
+	 * Set the maximal amount of changes per issue, creation included.
+	 *
+	 * @param maxChangesPerIssue The maximal amount of changes per issue.
+	 * @return This generator.
+	 */
+	public ChangeLogGenerator maxChangesPerIssue(final int maxChangesPerIssue) {
+		this.maxChangesPerIssue = maxChangesPerIssue;
+		return this;
+	}
+
+	/**
+	 * Set the probability an issue in progress goes to the {@link #WAITING} pause status.
+	 *
+	 * @param pauseRate The pause probability, between 0 and 1.
+	 * @return This generator.
+	 */
+	public ChangeLogGenerator pauseRate(final double pauseRate) {
+		this.pauseRate = pauseRate;
+		return this;
+	}
+
+	/**
+	 * Set the probability a resolved or closed issue is reopened.
+	 *
+	 * @param reopenRate The reopen probability, between 0 and 1.
+	 * @return This generator.
+	 */
+	public ChangeLogGenerator reopenRate(final double reopenRate) {
+		this.reopenRate = reopenRate;
+		return this;
+	}
+
+	/**
+	 * Set the period of the issue creations.
+	 *
+	 * @param start  The first creation instant.
+	 * @param period The creation period duration in milliseconds.
+	 * @return This generator.
+	 */
+	public ChangeLogGenerator period(final long start, final long period) {
+		this.start = start;
+		this.period = period;
+		return this;
+	}
+
+	/**
+	 * Set the log-normal distribution of the time spent in each status.
+	 *
+	 * @param medianHours The median time spent in a status, in hours.
+	 * @param sigma       The skew, standard deviation of the logarithm. <code>0</code> for a constant time.
+	 * @return This generator.
+	 */
+	public ChangeLogGenerator lifetime(final double medianHours, final double sigma) {
+		this.medianHours = medianHours;
+		this.sigma = sigma;
+		return this;
+	}
+
+	/**
+	 * Generate the changelog sorted by date, the changes of each issue staying in their order.
+	 *
+	 * @return The new columnar changelog.
+	 */
+	public ChangeLog generate() {
+		final Random random = new Random(seed);
+		final List<int[]> statuses = new ArrayList<>(issues);
+		final List<long[]> times = new ArrayList<>(issues);
+		int size = 0;
+		for (int index = 0; index < issues; index++) {
+			final long created = start + (long) (random.nextDouble() * period);
+			final int[] workflow = newWorkflow(random);
+			final long[] dates = new long[workflow.length];
+			dates[0] = created;
+			for (int change = 1; change < dates.length; change++) {
+				// At least 1ms to keep the order of the changes of an issue
+				dates[change] = dates[change - 1] + 1 + (long) (medianHours * DateUtils.MILLIS_PER_HOUR
+						* Math.exp(sigma * random.nextGaussian()));
+			}
+			statuses.add(workflow);
+			times.add(dates);
+			size += workflow.length;
+		}
+
+		final List<IssueDetails> details = new ArrayList<>(issues);
+		for (int index = 0; index < issues; index++) {
+			final int[] workflow = statuses.get(index);
+			final IssueDetails issue = new IssueDetails();
+			issue.setId(index + 1);
+			issue.setPkey("GEN-" + (index + 1));
+			issue.setReporter("reporter" + random.nextInt(20));
+			issue.setAssignee(random.nextInt(5) == 0 ? null : "assignee" + random.nextInt(50));
+			issue.setStatus(workflow[workflow.length - 1]);
+			issue.setType(1 + random.nextInt(3));
+			issue.setPriority(1 + random.nextInt(5));
+			issue.setResolution(workflow[workflow.length - 1] == CLOSED ? 1 + random.nextInt(3) : null);
+			issue.setCreated(new Date(times.get(index)[0]));
+			issue.setDueDate(random.nextInt(3) == 0 ? new Date(times.get(index)[0] + 10 * DateUtils.MILLIS_PER_DAY) : null);
+			details.add(issue);
+		}
+
+		// The changes are sorted by date, the index breaking the ties, and the issues are registered in the order of
+		// their first change
+		final ChangeLog log = new ChangeLog(size);
+		final int[] rowIssues = new int[size];
+		final int[] rowChanges = new int[size];
+		int row = 0;
+		for (int index = 0; index < issues; index++) {
+			for (int change = 0; change < statuses.get(index).length; change++) {
+				rowIssues[row] = index;
+				rowChanges[row++] = change;
+			}
+		}
+		IntStream.range(0, size).boxed()
+				.sorted((a, b) -> Long.compare(times.get(rowIssues[a])[rowChanges[a]], times.get(rowIssues[b])[rowChanges[b]]))
+				.forEachOrdered(r -> {
+					final int[] workflow = statuses.get(rowIssues[r]);
+					final int change = rowChanges[r];
+					if (change == 0) {
+						log.addIssue(details.get(rowIssues[r]));
+					}
+					log.add(rowIssues[r] + 1, change == 0 ? ChangeLog.NO_VALUE : workflow[change - 1], workflow[change],
+							times.get(rowIssues[r])[change]);
+				});
+		return log;
+	}
+
+	/**
+	 * Return the statuses of a new issue, starting with {@link #OPEN}.
+	 */
+	private int[] newWorkflow(final Random random) {
+		final int[] workflow = new int[Math.max(1, maxChangesPerIssue)];
+		workflow[0] = OPEN;
+		int size = 1;
+		int status = OPEN;
+		while (size < workflow.length) {
+			status = switch (status) {
+			case OPEN, REOPENED, WAITING -> IN_PROGRESS;
+			case IN_PROGRESS -> random.nextDouble() < pauseRate ? WAITING : RESOLVED;
+			case RESOLVED -> random.nextDouble() < reopenRate ? REOPENED : CLOSED;
+			default -> random.nextDouble() < reopenRate / 2 ? REOPENED : 0;
+			};
+			if (status == 0) {
+				// Closed for good
+				break;
+			}
+			workflow[size++] = status;
+		}
+		return Arrays.copyOf(workflow, size);
+	}
+
+	/**
+	 * Return the changes of the given changelog as change items.
+	 *
+	 * @param log The changelog.
+	 * @return The change items in the changelog order.
+	 */
+	public static List<ChangeItem> toChangeItems(final ChangeLog log) {
+		final List<IssueDetails> issues = new ArrayList<>(log.getIssueCount());
+		for (int issue = 0; issue < log.getIssueCount(); issue++) {
+			issues.add(log.toIssueDetails(issue));
+		}
+		final List<ChangeItem> changes = new ArrayList<>(log.size());
+		for (int change = 0; change < log.size(); change++) {
+			final IssueDetails issue = issues.get(log.getIssue(change));
+			final ChangeItem item = new ChangeItem();
+			item.setId(issue.getId());
+			item.setPkey(issue.getPkey());
+			item.setReporter(issue.getReporter());
+			item.setAssignee(issue.getAssignee());
+			item.setStatus(issue.getStatus());
+			item.setType(issue.getType());
+			item.setPriority(issue.getPriority());
+			item.setResolution(issue.getResolution());
+			item.setTimeSpent(issue.getTimeSpent());
+			item.setTimeEstimate(issue.getTimeEstimate());
+			item.setTimeEstimateInit(issue.getTimeEstimateInit());
+			item.setDueDate(issue.getDueDate());
+			item.setFromStatus(log.getFromStatus(change) == ChangeLog.NO_VALUE ? null : log.getFromStatus(change));
+			item.setToStatus(log.getToStatus(change));
+			item.setCreated(new Date(log.getCreated(change)));
+			changes.add(item);
+		}
+		return changes;
+	}
+
+	/**
+	 * Write the given changelog in a compact binary format : the issue details once, then each change with variable
+	 * length integers and delta encoded timestamps.
+	 *
+	 * @param log    The changelog to write.
+	 * @param output The target stream, not closed.
+	 * @throws IOException When the stream cannot be written.
+	 */
+	public static void write(final ChangeLog log, final OutputStream output) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(log.getIssueCount());
+		for (int index = 0; index < log.getIssueCount(); index++) {
+			final IssueDetails issue = log.toIssueDetails(index);
+			out.writeInt(issue.getId());
+			writeText(out, issue.getPkey());
+			writeText(out, issue.getReporter());
+			writeText(out, issue.getAssignee());
+			out.writeInt(issue.getStatus());
+			out.writeInt(issue.getType());
+			writeInteger(out, issue.getPriority());
+			writeInteger(out, issue.getResolution());
+			writeInteger(out, issue.getTimeSpent());
+			writeInteger(out, issue.getTimeEstimate());
+			writeInteger(out, issue.getTimeEstimateInit());
+			out.writeLong(issue.getCreated() == null ? ChangeLog.NO_DATE : issue.getCreated().getTime());
+			out.writeLong(issue.getDueDate() == null ? ChangeLog.NO_DATE : issue.getDueDate().getTime());
+		}
+		out.writeInt(log.size());
+		long previous = 0;
+		for (int change = 0; change < log.size(); change++) {
+			writeVarLong(out, log.getIssue(change));
+			writeVarLong(out, zigZag(log.getFromStatus(change)));
+			writeVarLong(out, zigZag(log.getToStatus(change)));
+			writeVarLong(out, zigZag(log.getCreated(change) - previous));
+			previous = log.getCreated(change);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Read a changelog written by {@link #write(ChangeLog, OutputStream)}.
+	 *
+	 * @param input The source stream, not closed.
+	 * @return The new changelog.
+	 * @throws IOException When the stream cannot be read or is not a changelog.
+	 */
+	public static ChangeLog read(final InputStream input) throws IOException {
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			throw new IOException("Unsupported changelog format");
+		}
+		final int issueCount = in.readInt();
+		final int[] identifiers = new int[issueCount];
+		final List<IssueDetails> issues = new ArrayList<>(issueCount);
+		for (int index = 0; index < issueCount; index++) {
+			final IssueDetails issue = new IssueDetails();
+			issue.setId(in.readInt());
+			issue.setPkey(readText(in));
+			issue.setReporter(readText(in));
+			issue.setAssignee(readText(in));
+			issue.setStatus(in.readInt());
+			issue.setType(in.readInt());
+			issue.setPriority(readInteger(in));
+			issue.setResolution(readInteger(in));
+			issue.setTimeSpent(readInteger(in));
+			issue.setTimeEstimate(readInteger(in));
+			issue.setTimeEstimateInit(readInteger(in));
+			issue.setCreated(readDate(in));
+			issue.setDueDate(readDate(in));
+			identifiers[index] = issue.getId();
+			issues.add(issue);
+		}
+		final int size = in.readInt();
+		final ChangeLog log = new ChangeLog(size);
+		issues.forEach(log::addIssue);
+		long previous = 0;
+		for (int change = 0; change < size; change++) {
+			final int issue = identifiers[(int) readVarLong(in)];
+			final int from = (int) unZigZag(readVarLong(in));
+			final int to = (int) unZigZag(readVarLong(in));
+			previous += unZigZag(readVarLong(in));
+			log.add(issue, from, to, previous);
+		}
+		return log;
+	}
+
+	private static void writeText(final DataOutputStream out, final String text) throws IOException {
+		out.writeBoolean(text != null);
+		if (text != null) {
+			out.writeUTF(text);
+		}
+	}
+
+	private static String readText(final DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeInteger(final DataOutputStream out, final Integer value) throws IOException {
+		out.writeInt(value == null ? ChangeLog.NO_VALUE : value);
+	}
+
+	private static Integer readInteger(final DataInputStream in) throws IOException {
+		final int value = in.readInt();
+		return value == ChangeLog.NO_VALUE ? null : value;
+	}
+
+	private static Date readDate(final DataInputStream in) throws IOException {
+		final long value = in.readLong();
+		return value == ChangeLog.NO_DATE ? null : new Date(value);
+	}
+
+	private static long zigZag(final long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(final long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			out.writeByte((int) (remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		out.writeByte((int) remaining);
+	}
+
+	private static long readVarLong(final DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			final int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
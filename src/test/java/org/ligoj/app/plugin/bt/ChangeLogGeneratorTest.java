@@ -0,0 +1,119 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.Sla;
+
+/**
+ * Test class of {@link ChangeLogGenerator}
+ */
+class ChangeLogGeneratorTest {
+
+	@Test
+	void generate() {
+		final ChangeLog log = new ChangeLogGenerator(1).issues(500).generate();
+		Assertions.assertEquals(500, log.getIssueCount());
+
+		// Sorted by date, and each change starts from the previous status of its issue
+		final int[] statuses = new int[log.getIssueCount()];
+		final Set<Integer> reached = new HashSet<>();
+		for (int change = 0; change < log.size(); change++) {
+			if (change > 0) {
+				Assertions.assertTrue(log.getCreated(change - 1) <= log.getCreated(change));
+			}
+			final int issue = log.getIssue(change);
+			Assertions.assertEquals(statuses[issue] == 0 ? ChangeLog.NO_VALUE : statuses[issue], log.getFromStatus(change));
+			statuses[issue] = log.getToStatus(change);
+			reached.add(log.getToStatus(change));
+		}
+		for (int issue = 0; issue < log.getIssueCount(); issue++) {
+			Assertions.assertEquals(statuses[issue], log.toIssueDetails(issue).getStatus());
+		}
+
+		// Pause states and reopen loops are generated
+		Assertions.assertTrue(reached.contains(ChangeLogGenerator.WAITING));
+		Assertions.assertTrue(reached.contains(ChangeLogGenerator.REOPENED));
+	}
+
+	@Test
+	void generateDeterministic() throws IOException {
+		Assertions.assertArrayEquals(toBytes(new ChangeLogGenerator(2).issues(100).generate()),
+				toBytes(new ChangeLogGenerator(2).issues(100).generate()));
+		Assertions.assertFalse(Arrays.equals(toBytes(new ChangeLogGenerator(2).issues(100).generate()),
+				toBytes(new ChangeLogGenerator(3).issues(100).generate())));
+	}
+
+	@Test
+	void generateMaxChanges() {
+		final ChangeLog log = new ChangeLogGenerator(4).issues(100).maxChangesPerIssue(1).generate();
+		Assertions.assertEquals(100, log.size());
+	}
+
+	@Test
+	void readWrite() throws IOException {
+		final ChangeLog log = new ChangeLogGenerator(5).issues(200).generate();
+		final byte[] bytes = toBytes(log);
+		final ChangeLog read = ChangeLogGenerator.read(new ByteArrayInputStream(bytes));
+		Assertions.assertArrayEquals(bytes, toBytes(read));
+		Assertions.assertEquals(log.size(), read.size());
+		Assertions.assertEquals(log.getCreated(log.size() - 1), read.getCreated(read.size() - 1));
+		Assertions.assertEquals(log.toIssueDetails(3).getPkey(), read.toIssueDetails(3).getPkey());
+	}
+
+	@Test
+	void readInvalid() {
+		Assertions.assertThrows(IOException.class,
+				() -> ChangeLogGenerator.read(new ByteArrayInputStream(new byte[] { 0, 0, 0, 0, 0, 0, 0, 1 })));
+	}
+
+	@Test
+	void toChangeItems() {
+		final ChangeLog log = new ChangeLogGenerator(6).issues(300).generate();
+		final List<ChangeItem> changes = ChangeLogGenerator.toChangeItems(log);
+		Assertions.assertEquals(log.size(), changes.size());
+		Assertions.assertNull(changes.getFirst().getFromStatus());
+		Assertions.assertEquals(ChangeLogGenerator.OPEN, changes.getFirst().getToStatus());
+
+		// Both representations give the same computations
+		final SlaProcessor processor = new SlaProcessor();
+		processor.identifierHelper = new IdentifierHelper();
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final Sla sla = new Sla();
+		sla.setName("Closing");
+		sla.setStart("OPEN");
+		sla.setStop("CLOSED");
+		sla.setStartAsSet(Set.of(ChangeLogGenerator.OPEN));
+		sla.setStopAsSet(Set.of(ChangeLogGenerator.CLOSED));
+		sla.setPausedAsSet(Set.of(ChangeLogGenerator.WAITING));
+		sla.setTypesAsSet(new HashSet<>());
+		sla.setPrioritiesAsSet(new HashSet<>());
+		sla.setResolutionsAsSet(new HashSet<>());
+		final SlaComputations expected = processor.process(calendar, changes, List.of(sla));
+		final SlaComputations actual = processor.process(calendar, log, List.of(sla));
+		Assertions.assertEquals(300, actual.getIssues().size());
+		for (int issue = 0; issue < 300; issue++) {
+			Assertions.assertEquals(expected.getIssues().get(issue).getPkey(), actual.getIssues().get(issue).getPkey());
+			Assertions.assertEquals(expected.getIssues().get(issue).getData().getFirst().getDuration(),
+					actual.getIssues().get(issue).getData().getFirst().getDuration());
+		}
+	}
+
+	private byte[] toBytes(final ChangeLog log) throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ChangeLogGenerator.write(log, output);
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.IssueDetails;
+
+/**
+ * Test class of {@link ChangeLog}
+ */
+class ChangeLogTest {
+
+	@Test
+	void add() {
+		final ChangeLog log = new ChangeLog(1);
+		for (int index = 0; index < 40; index++) {
+			final ChangeItem change = new ChangeItem();
+			change.setId(index % 20);
+			change.setPkey("P-" + (index % 20));
+			change.setReporter("R");
+			change.setCreated(new Date(index));
+			change.setFromStatus(index < 20 ? null : 1);
+			change.setToStatus(index < 20 ? 1 : 2);
+			change.setStatus(index < 20 ? 1 : 2);
+			change.setPriority(index < 20 ? null : 3);
+			log.add(change);
+		}
+		Assertions.assertEquals(40, log.size());
+		Assertions.assertEquals(20, log.getIssueCount());
+		Assertions.assertEquals(ChangeLog.NO_VALUE, log.getFromStatus(0));
+		Assertions.assertEquals(1, log.getFromStatus(25));
+		Assertions.assertEquals(2, log.getToStatus(25));
+		Assertions.assertEquals(25, log.getCreated(25));
+		Assertions.assertEquals(5, log.getIssue(25));
+
+		// Details of the first change
+		final IssueDetails details = log.toIssueDetails(5);
+		Assertions.assertEquals(5, details.getId().intValue());
+		Assertions.assertEquals("P-5", details.getPkey());
+		Assertions.assertEquals("R", details.getReporter());
+		Assertions.assertNull(details.getAssignee());
+		Assertions.assertNull(details.getPriority());
+		Assertions.assertNull(details.getDueDate());
+		Assertions.assertEquals(1, details.getStatus());
+		Assertions.assertEquals(new Date(5), details.getCreated());
+	}
+
+	@Test
+	void addNoIdentifier() {
+		final ChangeLog log = new ChangeLog();
+		for (int index = 0; index < 2; index++) {
+			final ChangeItem change = new ChangeItem();
+			change.setPkey("P");
+			change.setCreated(new Date(index));
+			change.setToStatus(index + 1);
+			change.setStatus(1);
+			log.add(change);
+		}
+
+		// Changes without issue identifier are grouped together
+		Assertions.assertEquals(2, log.size());
+		Assertions.assertEquals(1, log.getIssueCount());
+		Assertions.assertEquals(0, log.getIssue(1));
+		Assertions.assertNull(log.toIssueDetails(0).getId());
+		Assertions.assertEquals(0, log.addIssue(new IssueDetails()));
+	}
+
+	@Test
+	void addUnregistered() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> new ChangeLog().add(1, 1, 2, 0));
+	}
+}
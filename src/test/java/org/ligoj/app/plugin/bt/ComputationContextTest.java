@@ -188,6 +188,28 @@ class ComputationContextTest extends AbstractDataGeneratorTest {
 		Assertions.assertEquals(9 * DateUtils.MILLIS_PER_HOUR, context.getCursorTime());
 	}
 
+	@Test
+	void moveForwardToInstant() {
+		final ComputationContext context = new ComputationContext(new ArrayList<>(), newRanges(9, 12, 14, 18));
+		Assertions.assertFalse(context.isReset());
+		Assertions.assertNull(context.getCursor());
+		context.reset(getDate(2014, 3, 3).getTime());
+		Assertions.assertTrue(context.isReset());
+		Assertions.assertEquals(getDate(2014, 3, 3, 9, 0, 0).getTime(), context.getPosition());
+		Assertions.assertEquals(7 * DateUtils.MILLIS_PER_HOUR, context.moveForwardTo(getDate(2014, 3, 4, 8, 0, 0).getTime()));
+		Assertions.assertEquals(getDate(2014, 3, 4, 9, 0, 0).getTime(), context.getPosition());
+		Assertions.assertEquals(0, context.moveForwardTo(getDate(2014, 3, 4).getTime()));
+	}
+
+	@Test
+	void moveForwardByDuration() {
+		final ComputationContext context = new ComputationContext(new ArrayList<>(), newRanges(9, 12, 14, 18));
+		context.reset(getDate(2014, 3, 3).getTime());
+		Assertions.assertEquals(getDate(2014, 3, 4, 10, 0, 0).getTime(),
+				context.moveForwardBy(DateUtils.MILLIS_PER_HOUR * 8));
+		Assertions.assertEquals(getDate(2014, 3, 4, 10, 0, 0).getTime(), context.moveForwardBy(0));
+	}
+
 	@Test
 	void moveForwardToNextDayNonBusinessHour() {
 		final ComputationContext context = new ComputationContext(new ArrayList<>(), newRanges(9, 12, 14, 18));
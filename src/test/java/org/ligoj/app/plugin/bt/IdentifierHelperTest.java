@@ -57,4 +57,19 @@ class IdentifierHelperTest {
 		Assertions.assertTrue(identifiers.contains(2));
 	}
 
+	@Test
+	void getIndex() {
+		final Map<Integer, String> allStatus = new HashMap<>();
+		allStatus.put(1, "Open");
+		allStatus.put(2, "Closed");
+		final IdentifierIndex index = identifierHelper.getIndex(allStatus);
+
+		// The index does not follow the changes of the mapping
+		allStatus.put(3, "OPEN");
+		final IdentifierIndex index2 = identifierHelper.getIndex(allStatus);
+		Assertions.assertEquals(2, identifierHelper.toIdentifiers("Open", allStatus).size());
+		Assertions.assertEquals(1, index.getIdentifiers("OPEN").length);
+		Assertions.assertEquals(2, index2.getIdentifiers("OPEN").length);
+	}
+
 }
@@ -0,0 +1,47 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link IdentifierIndex} test class
+ */
+class IdentifierIndexTest {
+
+	private final IdentifierIndex index = newIndex();
+
+	private IdentifierIndex newIndex() {
+		final Map<Integer, String> allStatus = new LinkedHashMap<>();
+		allStatus.put(3, "OPEN");
+		allStatus.put(1, "Open");
+		allStatus.put(2, "Closed");
+		allStatus.put(4, "Résolu");
+		return new IdentifierIndex(allStatus);
+	}
+
+	@Test
+	void getIdentifiers() {
+		Assertions.assertArrayEquals(new int[] { 3, 1 }, index.getIdentifiers(" open"));
+		Assertions.assertArrayEquals(new int[] { 4 }, index.getIdentifiers("RESOLU"));
+		Assertions.assertEquals(0, index.getIdentifiers("In Progress").length);
+	}
+
+	@Test
+	void getIdentifiersCopy() {
+		index.getIdentifiers("Open")[0] = 0;
+		Assertions.assertArrayEquals(new int[] { 3, 1 }, index.getIdentifiers("Open"));
+	}
+
+	@Test
+	void toIdentifiers() {
+		Assertions.assertEquals(List.of(2, 3, 1), List.copyOf(index.toIdentifiers("Closed,In Progress,Open")));
+		Assertions.assertTrue(index.toIdentifiers(null).isEmpty());
+	}
+}
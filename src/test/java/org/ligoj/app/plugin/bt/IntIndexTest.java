@@ -0,0 +1,30 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link IntIndex}
+ */
+class IntIndexTest {
+
+	@Test
+	void add() {
+		final IntIndex index = new IntIndex(1);
+		for (int key = 0; key < 1000; key++) {
+			Assertions.assertEquals(key, index.add(key * 31 - 500));
+		}
+		Assertions.assertEquals(1000, index.size());
+		for (int key = 0; key < 1000; key++) {
+			Assertions.assertEquals(key, index.add(key * 31 - 500));
+			Assertions.assertEquals(key, index.indexOf(key * 31 - 500));
+			Assertions.assertEquals(key * 31 - 500, index.getKey(key));
+		}
+		Assertions.assertEquals(1000, index.size());
+		Assertions.assertEquals(-1, index.indexOf(1));
+		Assertions.assertEquals(-1, new IntIndex().indexOf(0));
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.mockito.Mockito;
+
+/**
+ * Test class of {@link ProviderMetadataCache}
+ */
+class ProviderMetadataCacheTest {
+
+	private final ProviderMetadataCache cache = new ProviderMetadataCache();
+
+	private BugTrackerServicePlugin provider;
+
+	@BeforeEach
+	void mockProvider() throws IOException {
+		provider = Mockito.mock(BugTrackerServicePlugin.class);
+		Mockito.when(provider.getStatuses(1)).thenReturn(Collections.singleton("OPEN"));
+		Mockito.when(provider.getTypes(1)).thenReturn(Collections.singleton("Bug"));
+		Mockito.when(provider.getPriorities(1)).thenReturn(Collections.singleton("Critical"));
+		Mockito.when(provider.getResolutions(1)).thenReturn(Collections.singleton("Fixed"));
+	}
+
+	@Test
+	void getMetadata() throws IOException {
+		final ProviderMetadataCache.Metadata metadata = cache.getMetadata(1, provider);
+		Assertions.assertEquals(Collections.singleton("OPEN"), metadata.statuses());
+		Assertions.assertEquals(Collections.singleton("Bug"), metadata.types());
+		Assertions.assertEquals(Collections.singleton("Critical"), metadata.priorities());
+		Assertions.assertEquals(Collections.singleton("Fixed"), metadata.resolutions());
+
+		// Cached
+		Assertions.assertSame(metadata, cache.getMetadata(1, provider));
+		Mockito.verify(provider, Mockito.times(1)).getStatuses(1);
+	}
+
+	@Test
+	void getMetadataExpired() throws IOException {
+		cache.ttl = 0;
+		final ProviderMetadataCache.Metadata metadata = cache.getMetadata(1, provider);
+		Assertions.assertNotSame(metadata, cache.getMetadata(1, provider));
+		Mockito.verify(provider, Mockito.times(2)).getStatuses(1);
+	}
+
+	@Test
+	void getMetadataError() throws IOException {
+		Mockito.when(provider.getTypes(1)).thenThrow(new IOException("failed")).thenReturn(Collections.singleton("Bug"));
+		Assertions.assertEquals("failed",
+				Assertions.assertThrows(IOException.class, () -> cache.getMetadata(1, provider)).getMessage());
+
+		// Failures are not cached
+		Assertions.assertEquals(Collections.singleton("Bug"), cache.getMetadata(1, provider).types());
+	}
+
+	@Test
+	void getMetadataBusinessError() throws IOException {
+		Mockito.when(provider.getPriorities(1)).thenThrow(new BusinessException("service:bt:failed"));
+		Assertions.assertEquals("service:bt:failed",
+				Assertions.assertThrows(BusinessException.class, () -> cache.getMetadata(1, provider)).getMessage());
+	}
+
+	@Test
+	void getMetadataPurgeExpired() throws IOException {
+		cache.ttl = 0;
+		final BugTrackerServicePlugin provider2 = Mockito.mock(BugTrackerServicePlugin.class);
+		cache.getMetadata(2, provider2);
+		Assertions.assertTrue(cache.entries.containsKey(2));
+		cache.getMetadata(1, provider);
+
+		// The expired metadata of the subscription 2 has been purged
+		Assertions.assertFalse(cache.entries.containsKey(2));
+		Assertions.assertTrue(cache.entries.containsKey(1));
+	}
+
+	@Test
+	void getMetadataCallerThread() throws IOException {
+		final Thread caller = Thread.currentThread();
+		Mockito.when(provider.getStatuses(1)).then(i -> {
+			Assertions.assertSame(caller, Thread.currentThread());
+			return Collections.singleton("OPEN");
+		});
+		Assertions.assertEquals(Collections.singleton("OPEN"), cache.getMetadata(1, provider).statuses());
+	}
+
+	@Test
+	void evict() throws IOException {
+		final ProviderMetadataCache.Metadata metadata = cache.getMetadata(1, provider);
+		cache.evict(2);
+		Assertions.assertSame(metadata, cache.getMetadata(1, provider));
+		cache.evict(1);
+		final ProviderMetadataCache.Metadata metadata2 = cache.getMetadata(1, provider);
+		Assertions.assertNotSame(metadata, metadata2);
+		cache.clear();
+		Assertions.assertNotSame(metadata2, cache.getMetadata(1, provider));
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link SlaCsvWriter}
+ */
+class SlaCsvWriterTest {
+
+	@Test
+	void write() throws IOException {
+		final SlaConfiguration sla1 = new SlaConfiguration();
+		sla1.setName("Close");
+		final SlaConfiguration sla2 = new SlaConfiguration();
+		sla2.setName("Fix;now");
+
+		final IssueSla issue = new IssueSla();
+		issue.setId(1);
+		issue.setPkey("MDA-1");
+		issue.setCreated(new Date(0));
+		issue.setStatus(2);
+		issue.setType(3);
+		issue.setReporter("Say \"hello\"");
+		final SlaData data = new SlaData();
+		data.setDuration(1000);
+		data.setStart(new Date(3600000));
+		data.setRevisedDueDateDistance(-5L);
+		issue.setData(Arrays.asList(data, null));
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (SlaCsvWriter writer = new SlaCsvWriter(output, List.of(sla1, sla2), ZoneOffset.UTC)) {
+			writer.accept(issue);
+			writer.accept(issue);
+			writer.finish();
+		}
+		final String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+		Assertions.assertEquals(3, lines.length);
+		Assertions.assertEquals("id;pkey;created;status;type;priority;resolution;reporter;assignee;dueDate;timeSpent;"
+				+ "timeEstimate;timeEstimateInit;Close duration;Close start;Close stop;Close revisedDueDate;"
+				+ "Close revisedDueDateDistance;\"Fix;now duration\";\"Fix;now start\";\"Fix;now stop\";"
+				+ "\"Fix;now revisedDueDate\";\"Fix;now revisedDueDateDistance\"", lines[0]);
+		Assertions.assertEquals("1;MDA-1;1970/01/01 00:00:00;2;3;;;\"Say \"\"hello\"\"\";;;;;;1000;1970/01/01 01:00:00;;;-5;;;;;",
+				lines[1]);
+		Assertions.assertEquals(lines[1], lines[2]);
+	}
+}
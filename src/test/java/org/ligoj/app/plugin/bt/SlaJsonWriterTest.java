@@ -0,0 +1,51 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test class of {@link SlaJsonWriter}
+ */
+class SlaJsonWriterTest {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void write() throws IOException {
+		final SlaConfiguration sla = new SlaConfiguration();
+		sla.setName("Close");
+		final IssueSla issue = new IssueSla();
+		issue.setPkey("MDA-1");
+
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (SlaJsonWriter writer = new SlaJsonWriter(mapper, output, List.of(sla))) {
+			writer.accept(issue);
+			writer.finish();
+		}
+		final JsonNode computations = mapper.readTree(output.toByteArray());
+		Assertions.assertEquals("Close", computations.get("slaConfigurations").get(0).get("name").asText());
+		Assertions.assertEquals("MDA-1", computations.get("issues").get(0).get("pkey").asText());
+	}
+
+	@Test
+	void writeNotFinished() throws IOException {
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try (SlaJsonWriter writer = new SlaJsonWriter(mapper, output, List.of())) {
+			writer.accept(new IssueSla());
+		}
+		final String json = output.toString();
+		Assertions.assertTrue(json.startsWith("{\"slaConfigurations\":[],\"issues\":[{"));
+		Assertions.assertTrue(json.endsWith("}"));
+		Assertions.assertThrows(IOException.class, () -> mapper.readTree(output.toByteArray()));
+	}
+}
@@ -3,10 +3,16 @@
  */
 package org.ligoj.app.plugin.bt;
 
+import java.time.Clock;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang3.time.DateUtils;
@@ -14,6 +20,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.IssueCheckpoint;
 import org.ligoj.app.plugin.bt.model.Sla;
 import org.ligoj.bootstrap.AbstractDataGeneratorTest;
 
@@ -97,6 +104,250 @@ class SlaProcessorTest extends AbstractDataGeneratorTest {
 		Assertions.assertEquals(4000, process.getIssues().getFirst().getData().getFirst().getDuration());
 	}
 
+	/**
+	 * Streamed changes grouped by issue give the same SLA than the changes ordered by date.
+	 */
+	@Test
+	void processStream() {
+		final List<ChangeItem> changes = newTwoIssuesChanges();
+
+		final List<IssueSla> issues = new ArrayList<>();
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		processor.process(calendar, changes.stream(), newSla(), issues::add);
+		Assertions.assertEquals(2, issues.size());
+		Assertions.assertEquals(1, issues.getFirst().getId().intValue());
+		Assertions.assertEquals(6000, issues.getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(2, issues.get(1).getId().intValue());
+		Assertions.assertEquals(4000, issues.get(1).getData().getFirst().getDuration());
+		Assertions.assertEquals(1, issues.get(1).getStatusCounter().get(3).intValue());
+
+		// Same result from the changes ordered by date
+		changes.sort(Comparator.comparing(ChangeItem::getCreated));
+		final SlaComputations process = processor.process(calendar, changes, newSla());
+		Assertions.assertEquals(6000, process.getIssues().getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(4000, process.getIssues().get(1).getData().getFirst().getDuration());
+	}
+
+	/**
+	 * Issues computed independently from unsorted changes.
+	 */
+	@Test
+	void processIssues() {
+		// Unsorted changes, the ones of the issue 2 first
+		final List<ChangeItem> changes = newTwoIssuesChanges();
+		Collections.reverse(changes);
+
+		processor.parallelism = 2;
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final SlaComputations process = processor.processIssues(calendar, changes, newSla());
+		Assertions.assertEquals(2, process.getIssues().size());
+		Assertions.assertEquals(2, process.getIssues().getFirst().getId().intValue());
+		Assertions.assertEquals(4000, process.getIssues().getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(1, process.getIssues().getFirst().getStatusCounter().get(3).intValue());
+		Assertions.assertEquals(1, process.getIssues().get(1).getId().intValue());
+		Assertions.assertEquals(6000, process.getIssues().get(1).getData().getFirst().getDuration());
+	}
+
+	@Test
+	void processUpdatedSla() {
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final List<Sla> slas = newSla();
+		Assertions.assertNotNull(processor.processIssues(calendar, newTwoIssuesChanges(), slas).getIssues()
+				.getFirst().getData().getFirst());
+
+		// The identifier sets resolved again are used by the next computation
+		slas.getFirst().setTypesAsSet(Set.of(99));
+		Assertions.assertNull(processor.processIssues(calendar, newTwoIssuesChanges(), slas).getIssues().getFirst()
+				.getData().getFirst());
+	}
+
+	@Test
+	void processChangeLog() {
+		final List<ChangeItem> changes = newTwoIssuesChanges();
+		changes.sort(Comparator.comparing(ChangeItem::getCreated));
+		final ChangeLog log = new ChangeLog(2);
+		changes.forEach(log::add);
+
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final SlaComputations process = processor.process(calendar, log, newSla());
+		Assertions.assertEquals(2, process.getIssues().size());
+		Assertions.assertEquals(1, process.getIssues().getFirst().getId().intValue());
+		Assertions.assertEquals(6000, process.getIssues().getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(2, process.getIssues().get(1).getId().intValue());
+		Assertions.assertEquals(4000, process.getIssues().get(1).getData().getFirst().getDuration());
+		Assertions.assertEquals(1, process.getIssues().get(1).getStatusCounter().get(3).intValue());
+		Assertions.assertEquals(getDate(2014, 7, 21, 0, 0, 10), process.getIssues().get(1).getData().getFirst().getStop());
+
+		// Same result in parallel
+		processor.parallelism = 2;
+		final SlaComputations parallel = processor.process(calendar, log, newSla());
+		Assertions.assertEquals(4000, parallel.getIssues().get(1).getData().getFirst().getDuration());
+	}
+
+	/**
+	 * Incremental computation from checkpoints gives the same result as the full computation.
+	 */
+	@Test
+	void processCheckpoint() {
+		final List<ChangeItem> changes = newTwoIssuesChanges();
+
+		// First computation with only the two first changes of the issue 2
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final List<Sla> slas = newSla();
+		final Map<Integer, IssueCheckpoint> checkpoints = new HashMap<>();
+		final List<IssueSla> issues = new ArrayList<>();
+		processor.process(calendar, checkpoints, changes.subList(0, 4).iterator(), slas, issues::add);
+		Assertions.assertEquals(2, checkpoints.size());
+		Assertions.assertEquals(3, checkpoints.get(2).getLastStatus());
+		Assertions.assertEquals(2000, checkpoints.get(2).getSlas().getFirst().getDuration());
+		Assertions.assertTrue(checkpoints.get(2).getSlas().getFirst().isStarted());
+		Assertions.assertFalse(checkpoints.get(2).getSlas().getFirst().isPaused());
+		Assertions.assertEquals(1, checkpoints.get(2).getStatusCounter().get(2).intValue());
+		Assertions.assertNull(checkpoints.get(2).getStatusCounter().get(3));
+
+		// Resume with all changes, the already processed ones are ignored
+		issues.clear();
+		processor.process(calendar, checkpoints, changes.subList(2, 6).iterator(), slas, issues::add);
+		Assertions.assertEquals(2, issues.size());
+		Assertions.assertEquals(2, issues.getFirst().getId().intValue());
+		Assertions.assertEquals(4000, issues.getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(getDate(2014, 7, 21, 0, 0, 2), issues.getFirst().getData().getFirst().getStart());
+		Assertions.assertEquals(1, issues.getFirst().getStatusCounter().get(3).intValue());
+		Assertions.assertEquals(1, issues.getFirst().getStatusCounter().get(6).intValue());
+		Assertions.assertEquals(6, checkpoints.get(2).getLastStatus());
+
+		// The untouched issue is still computed
+		Assertions.assertEquals(1, issues.get(1).getId().intValue());
+		Assertions.assertEquals(6000, issues.get(1).getData().getFirst().getDuration());
+		Assertions.assertEquals(2, issues.get(1).getStatusCounter().size());
+	}
+
+	/**
+	 * The resolution of an issue changes between two incremental computations, the SLA filtered by this resolution
+	 * becomes applicable : the result is the one of the full computation.
+	 */
+	@Test
+	void processCheckpointResolution() {
+		final List<ChangeItem> changes = newTwoIssuesChanges();
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final List<Sla> slas = newSla();
+		slas.getFirst().setResolutionsAsSet(Set.of(2));
+		final Map<Integer, IssueCheckpoint> checkpoints = new HashMap<>();
+		processor.process(calendar, checkpoints, changes.subList(0, 4).iterator(), slas, i -> {
+		});
+		Assertions.assertTrue(checkpoints.get(2).getSlas().isEmpty());
+
+		// The issue 2 is resolved, all its changes hold the new details
+		changes.subList(2, 6).forEach(c -> {
+			c.setResolution(2);
+			c.setAssignee("someone");
+		});
+		final List<IssueSla> issues = new ArrayList<>();
+		processor.process(calendar, checkpoints, changes.subList(2, 6).iterator(), slas, issues::add);
+		final List<IssueSla> expected = new ArrayList<>();
+		processor.process(calendar, changes.subList(2, 6).iterator(), slas, expected::add);
+
+		final IssueSla issue = issues.getFirst();
+		Assertions.assertEquals(2, issue.getId().intValue());
+		Assertions.assertEquals(2, issue.getResolution().intValue());
+		Assertions.assertEquals("someone", issue.getAssignee());
+		Assertions.assertEquals(4000, issue.getData().getFirst().getDuration());
+		Assertions.assertEquals(expected.getFirst().getData().getFirst().getDuration(),
+				issue.getData().getFirst().getDuration());
+		Assertions.assertEquals(expected.getFirst().getData().getFirst().getStart(), issue.getData().getFirst().getStart());
+		Assertions.assertEquals(expected.getFirst().getData().getFirst().getStop(), issue.getData().getFirst().getStop());
+		Assertions.assertEquals(expected.getFirst().getStatusCounter(), issue.getStatusCounter());
+		Assertions.assertEquals(getDate(2014, 7, 21, 0, 0, 2), issue.getCreated());
+
+		// The checkpoint is rebuilt with the new details
+		Assertions.assertEquals(2, checkpoints.get(2).getResolution().intValue());
+		Assertions.assertEquals("someone", checkpoints.get(2).getAssignee());
+		Assertions.assertEquals(1, checkpoints.get(2).getSlas().size());
+		Assertions.assertEquals(1, checkpoints.get(2).getStatusCounter().get(3).intValue());
+
+		// The issue 1 is still not applicable
+		Assertions.assertNull(issues.get(1).getData().getFirst());
+	}
+
+	/**
+	 * The details of a resumed issue not filtering the SLA are refreshed from the new changes.
+	 */
+	@Test
+	void processCheckpointDetails() {
+		final List<ChangeItem> changes = newTwoIssuesChanges();
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final List<Sla> slas = newSla();
+		final Map<Integer, IssueCheckpoint> checkpoints = new HashMap<>();
+		processor.process(calendar, checkpoints, changes.subList(0, 4).iterator(), slas, i -> {
+		});
+
+		changes.subList(2, 6).forEach(c -> {
+			c.setStatus(6);
+			c.setAssignee("someone");
+		});
+		final List<IssueSla> issues = new ArrayList<>();
+		processor.process(calendar, checkpoints, changes.subList(2, 6).iterator(), slas, issues::add);
+		Assertions.assertEquals(6, issues.getFirst().getStatus());
+		Assertions.assertEquals("someone", issues.getFirst().getAssignee());
+		Assertions.assertEquals(4000, issues.getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(6, checkpoints.get(2).getStatus());
+		Assertions.assertEquals("someone", checkpoints.get(2).getAssignee());
+	}
+
+	@Test
+	void processStreamEmpty() {
+		final List<IssueSla> issues = new ArrayList<>();
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		processor.process(calendar, new ArrayList<ChangeItem>().iterator(), newSla(), issues::add);
+		Assertions.assertTrue(issues.isEmpty());
+	}
+
+	/**
+	 * More SLA than a single evaluation group.
+	 */
+	@Test
+	void processManySlas() {
+		final List<ChangeItem> changes = new ArrayList<>();
+		changes.add(newChangeItem(1, 2, 0)); // Start [2s]
+		changes.add(newChangeItem(2, 3, 1)); // Pause
+		changes.add(newChangeItem(3, 4, 2)); // Restart [2s]
+		changes.add(newChangeItem(4, 5, 3)); // Pause
+		changes.add(newChangeItem(5, 6, 4)); // Stop
+
+		final List<Sla> slas = new ArrayList<>();
+		for (int i = 0; i < 70; i++) {
+			slas.addAll(newSla());
+		}
+		final SlaComputations process = processor.process(new ArrayList<>(), changes, new ArrayList<>(), slas);
+		Assertions.assertEquals(70, process.getIssues().getFirst().getData().size());
+		process.getIssues().getFirst().getData().forEach(d -> Assertions.assertEquals(4000, d.getDuration()));
+	}
+
+	/**
+	 * Parallel evaluation keeps the order of the issues.
+	 */
+	@Test
+	void processParallel() {
+		final List<ChangeItem> changes = new ArrayList<>();
+		for (int issue = 0; issue < 100; issue++) {
+			changes.add(newIssueChange(issue, 1, 2, 0)); // Start
+		}
+		for (int shift = 1; shift <= 5; shift++) {
+			for (int issue = shift - 1; issue < 100; issue += 5) {
+				changes.add(newIssueChange(issue, 2, 6, shift)); // Stop [2s * shift]
+			}
+		}
+
+		processor.parallelism = 4;
+		final SlaComputations process = processor.process(new ArrayList<>(), changes, new ArrayList<>(), newSla());
+		Assertions.assertEquals(100, process.getIssues().size());
+		for (int issue = 0; issue < 100; issue++) {
+			Assertions.assertEquals(Integer.valueOf(issue), process.getIssues().get(issue).getId());
+			Assertions.assertEquals((issue % 5 + 1) * 2000,
+					process.getIssues().get(issue).getData().getFirst().getDuration());
+		}
+	}
+
 	/**
 	 * The due date is after all changes and would be shifted with all paused durations.
 	 */
@@ -251,6 +502,105 @@ class SlaProcessorTest extends AbstractDataGeneratorTest {
 		Assertions.assertTrue(slaData.getRevisedDueDateDistance() < -47800000000L);
 	}
 
+	/**
+	 * Negative and large status identifiers are remapped.
+	 */
+	@Test
+	void processLargeIdentifiers() {
+		final List<ChangeItem> changes = new ArrayList<>();
+		changes.add(newChangeItem(1, 3_000_000, 0)); // Start [2s]
+		changes.add(newChangeItem(3_000_000, -5, 1)); // Pause
+		changes.add(newChangeItem(-5, 4, 2)); // Restart [2s]
+		changes.add(newChangeItem(4, Integer.MAX_VALUE, 3)); // Stop
+		changes.add(newChangeItem(Integer.MAX_VALUE, 7, 4)); // Ignored
+
+		final List<Sla> slas = newSla();
+		slas.getFirst().setStartAsSet(Set.of(3_000_000, 4));
+		slas.getFirst().setPausedAsSet(Set.of(-5));
+		slas.getFirst().setStopAsSet(Set.of(Integer.MAX_VALUE));
+		final SlaComputations process = processor.process(new ArrayList<>(), changes, new ArrayList<>(), slas);
+		Assertions.assertEquals(4000, process.getIssues().getFirst().getData().getFirst().getDuration());
+		Assertions.assertEquals(getDate(2014, 7, 21, 0, 0, 6),
+				process.getIssues().getFirst().getData().getFirst().getStop());
+	}
+
+	/**
+	 * All the open SLA of a run are measured against the same instant, given by the clock.
+	 */
+	@Test
+	void processClock() {
+		final List<ChangeItem> changes = new ArrayList<>();
+		final Date dueDate = getDate(2014, 7, 21, 0, 0, 5);
+		changes.add(newChangeItem(1, 2, 1, dueDate)); // Start [2s]
+		changes.add(newChangeItem(2, 3, 2, dueDate)); // Pause
+		changes.add(newChangeItem(3, 4, 3, dueDate)); // Restart [2s]
+		changes.add(newChangeItem(4, 7, 4, dueDate)); // Ignored, continue timer until now [52s]
+		changes.forEach(c -> c.setId(1));
+		processor.clock = Clock.fixed(getDate(2014, 7, 21, 0, 1, 0).toInstant(), ZoneId.systemDefault());
+
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+		final List<SlaData> results = new ArrayList<>();
+		results.add(processor.process(calendar, changes, newSla()).getIssues().getFirst().getData().getFirst());
+		results.add(processor.processIssues(calendar, changes, newSla()).getIssues().getFirst().getData().getFirst());
+		final ChangeLog log = new ChangeLog(1);
+		changes.forEach(log::add);
+		results.add(processor.process(calendar, log, newSla()).getIssues().getFirst().getData().getFirst());
+		processor.process(calendar, changes.stream(), newSla(), i -> results.add(i.getData().getFirst()));
+		for (final SlaData slaData : results) {
+			Assertions.assertEquals(56000, slaData.getDuration());
+			Assertions.assertNull(slaData.getStop());
+
+			// Due date shift : 2 seconds
+			Assertions.assertEquals(getDate(2014, 7, 21, 0, 0, 7), slaData.getRevisedDueDate());
+			Assertions.assertEquals(-53000, slaData.getRevisedDueDateDistance());
+		}
+	}
+
+	/**
+	 * Threshold breach of running, breached, stopped and not thresholded SLA.
+	 */
+	@Test
+	void processThreshold() {
+		final List<ChangeItem> changes = new ArrayList<>();
+		changes.add(newChangeItem(1, 2, 1)); // Start [2s]
+		changes.add(newChangeItem(2, 3, 2)); // Pause
+		changes.add(newChangeItem(3, 4, 3)); // Restart [2s]
+		changes.add(newChangeItem(4, 7, 4)); // Ignored, continue timer until now [52s]
+		processor.clock = Clock.fixed(getDate(2014, 7, 21, 0, 1, 0).toInstant(), ZoneId.systemDefault());
+		final BusinessCalendar calendar = new BusinessCalendar(new ArrayList<>(), new ArrayList<>());
+
+		// Running, 4s remaining
+		final List<Sla> slas = newSla();
+		slas.getFirst().setThreshold(60000);
+		SlaData slaData = processor.process(calendar, changes, slas).getIssues().getFirst().getData().getFirst();
+		Assertions.assertEquals(56000, slaData.getDuration());
+		Assertions.assertFalse(slaData.getBreached());
+		Assertions.assertEquals(4000, slaData.getRemaining());
+		Assertions.assertEquals(getDate(2014, 7, 21, 0, 1, 4), slaData.getBreachDate());
+
+		// Running, already breached
+		slas.getFirst().setThreshold(50000);
+		slaData = processor.process(calendar, changes, slas).getIssues().getFirst().getData().getFirst();
+		Assertions.assertTrue(slaData.getBreached());
+		Assertions.assertEquals(-6000, slaData.getRemaining());
+		Assertions.assertNull(slaData.getBreachDate());
+
+		// Stopped, no projection
+		changes.add(newChangeItem(7, 6, 5)); // Stop
+		slaData = processor.process(calendar, changes, slas).getIssues().getFirst().getData().getFirst();
+		Assertions.assertEquals(6000, slaData.getDuration());
+		Assertions.assertFalse(slaData.getBreached());
+		Assertions.assertEquals(44000, slaData.getRemaining());
+		Assertions.assertNull(slaData.getBreachDate());
+
+		// No threshold
+		slas.getFirst().setThreshold(0);
+		slaData = processor.process(calendar, changes, slas).getIssues().getFirst().getData().getFirst();
+		Assertions.assertNull(slaData.getBreached());
+		Assertions.assertNull(slaData.getRemaining());
+		Assertions.assertNull(slaData.getBreachDate());
+	}
+
 	/**
 	 * New SLA configuration
 	 * <br>
@@ -282,6 +632,30 @@ class SlaProcessorTest extends AbstractDataGeneratorTest {
 		return slas;
 	}
 
+	/**
+	 * Return the changes of two issues, grouped by issue and ordered by date within an issue.
+	 * <br>
+	 * Issue 1 : start, stop [6s]<br>
+	 * Issue 2 : start, pause [2s], restart, stop [2s]
+	 */
+	private List<ChangeItem> newTwoIssuesChanges() {
+		final List<ChangeItem> changes = new ArrayList<>();
+		changes.add(newIssueChange(1, 1, 2, 0)); // Start
+		changes.add(newIssueChange(1, 2, 6, 3)); // Stop [6s]
+		changes.add(newIssueChange(2, 1, 2, 1)); // Start
+		changes.add(newIssueChange(2, 2, 3, 2)); // Pause [2s]
+		changes.add(newIssueChange(2, 3, 4, 4)); // Restart
+		changes.add(newIssueChange(2, 4, 6, 5)); // Stop [2s]
+		return changes;
+	}
+
+	// Add a status change of an issue
+	private ChangeItem newIssueChange(final int issue, final int from, final int to, final int shift) {
+		final ChangeItem changeItem = newChangeItem(from, to, shift);
+		changeItem.setId(issue);
+		return changeItem;
+	}
+
 	// Add a status change
 	private ChangeItem newChangeItem(final int from, final int to, final Date dueDate) {
 		return newChangeItem(from, to, from, dueDate);
@@ -0,0 +1,46 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link StatusCounter}
+ */
+class StatusCounterTest {
+
+	@Test
+	void increment() {
+		final StatusCounter counter = new StatusCounter();
+		for (int index = 0; index < 20; index++) {
+			counter.increment(20 - index % 10);
+		}
+		Assertions.assertEquals(10, counter.size());
+		Assertions.assertEquals(2, counter.getCount(11));
+		Assertions.assertEquals(0, counter.getCount(1));
+		Assertions.assertEquals(2, counter.get(11).intValue());
+		Assertions.assertNull(counter.get(1));
+		Assertions.assertNull(counter.get("11"));
+		Assertions.assertTrue(counter.containsKey(20));
+		Assertions.assertFalse(counter.containsKey(1));
+
+		// Insertion order
+		final List<Integer> keys = new ArrayList<>(counter.keySet());
+		Assertions.assertEquals(20, keys.getFirst().intValue());
+		Assertions.assertEquals(11, keys.getLast().intValue());
+	}
+
+	@Test
+	void copy() {
+		final StatusCounter counter = new StatusCounter(Map.of(1, 2, 3, 4));
+		counter.increment(3);
+		Assertions.assertEquals(Map.of(1, 2, 3, 5), counter);
+		Assertions.assertEquals(Map.of(1, 2, 3, 5), Map.copyOf(counter));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.bt.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class of {@link CompiledSla} and {@link IdentifierSet}
+ */
+class CompiledSlaTest {
+
+	@Test
+	void contains() {
+		final IdentifierSet set = new IdentifierSet(List.of(1, 5, -3, IdentifierSet.MAX_DENSE, Integer.MAX_VALUE,
+				Integer.MIN_VALUE, 5, -3));
+		Assertions.assertFalse(set.isEmpty());
+		Assertions.assertTrue(set.contains(1));
+		Assertions.assertTrue(set.contains(5));
+		Assertions.assertTrue(set.contains(-3));
+		Assertions.assertTrue(set.contains(IdentifierSet.MAX_DENSE));
+		Assertions.assertTrue(set.contains(Integer.MAX_VALUE));
+		Assertions.assertTrue(set.contains(Integer.MIN_VALUE));
+		Assertions.assertFalse(set.contains(0));
+		Assertions.assertFalse(set.contains(-1));
+		Assertions.assertFalse(set.contains(IdentifierSet.MAX_DENSE - 1));
+		Assertions.assertFalse(set.contains(IdentifierSet.MAX_DENSE + 1));
+
+		// Dense identifiers first, then the other ones, without duplicate
+		final List<Integer> identifiers = new ArrayList<>();
+		set.forEach(identifiers::add);
+		Assertions.assertEquals(List.of(1, 5, Integer.MIN_VALUE, -3, IdentifierSet.MAX_DENSE, Integer.MAX_VALUE),
+				identifiers);
+	}
+
+	@Test
+	void containsEmpty() {
+		final IdentifierSet set = new IdentifierSet(Set.of());
+		Assertions.assertTrue(set.isEmpty());
+		Assertions.assertFalse(set.contains(0));
+		Assertions.assertFalse(set.contains(-1));
+	}
+
+	@Test
+	void compile() {
+		final CompiledSla compiled = new CompiledSla(newSla(Set.of(), Set.of(), Set.of()));
+		Assertions.assertTrue(compiled.getStart().contains(2));
+		Assertions.assertTrue(compiled.getStop().contains(-6));
+		Assertions.assertTrue(compiled.getPaused().contains(3_000_000));
+		Assertions.assertFalse(compiled.getStart().contains(-6));
+	}
+
+	@Test
+	void isApplicableNoFilter() {
+		final CompiledSla compiled = new CompiledSla(newSla(Set.of(), Set.of(), Set.of()));
+		Assertions.assertTrue(compiled.isApplicable(null, null, null));
+		Assertions.assertTrue(compiled.isApplicable(-1, 2, 3_000_000));
+	}
+
+	@Test
+	void isApplicable() {
+		final CompiledSla compiled = new CompiledSla(newSla(Set.of(1, -2), Set.of(3_000_000), Set.of(4)));
+		Assertions.assertTrue(compiled.isApplicable(1, 3_000_000, 4));
+		Assertions.assertTrue(compiled.isApplicable(-2, 3_000_000, 4));
+		Assertions.assertFalse(compiled.isApplicable(2, 3_000_000, 4));
+		Assertions.assertFalse(compiled.isApplicable(1, 3, 4));
+		Assertions.assertFalse(compiled.isApplicable(1, 3_000_000, -4));
+		Assertions.assertFalse(compiled.isApplicable(null, 3_000_000, 4));
+	}
+
+	private Sla newSla(final Set<Integer> types, final Set<Integer> priorities, final Set<Integer> resolutions) {
+		final Sla sla = new Sla();
+		sla.setStartAsSet(Set.of(2));
+		sla.setStopAsSet(Set.of(-6));
+		sla.setPausedAsSet(Set.of(3_000_000));
+		sla.setTypesAsSet(types);
+		sla.setPrioritiesAsSet(priorities);
+		sla.setResolutionsAsSet(resolutions);
+		return sla;
+	}
+}